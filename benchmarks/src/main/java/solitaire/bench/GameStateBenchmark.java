@@ -0,0 +1,74 @@
+package solitaire.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import solitaire.Card;
+import solitaire.GameState;
+
+import java.util.concurrent.TimeUnit;
+
+// Dealing, drawing and move checks on GameState
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+    private long seed;
+    private GameState state;
+    private Card[] cards;
+
+    @Setup
+    public void setup() {
+        state = new GameState(1);
+        // Every card of the deal
+        cards = new Card[52];
+        int count = 0;
+        for (int i = 0; i < 7; i++) {
+            for (Card card : state.getGamePile(i)) {
+                cards[count++] = card;
+            }
+        }
+        for (Card card : state.getDeck()) {
+            cards[count++] = card;
+        }
+    }
+
+    // initializeDeck, shuffleDeck and dealInitialCards on a new state
+    @Benchmark
+    public GameState newGame() {
+        return new GameState(seed++);
+    }
+
+    // The same deal reusing an existing state's piles
+    @Benchmark
+    public GameState redeal() {
+        state.deal(seed++);
+        return state;
+    }
+
+    // Draws through the whole deck and turns the discard pile over, ending where it started.
+    // The undo history is cleared each time, as in MoveBenchmark.moveRunThereAndBack.
+    @Benchmark
+    public int drawWholeDeck() {
+        int draws = 0;
+        do {
+            state.drawFromDeck();
+            draws++;
+        } while (!state.getDeck().isEmpty());
+        state.drawFromDeck();
+        state.clearHistory();
+        return draws;
+    }
+
+    // Every card of the deal checked against every tableau pile
+    @Benchmark
+    public void canCardMove(Blackhole blackhole) {
+        for (Card card : cards) {
+            for (int pile = 0; pile < 7; pile++) {
+                blackhole.consume(state.canCardMove(card, pile));
+            }
+        }
+    }
+}
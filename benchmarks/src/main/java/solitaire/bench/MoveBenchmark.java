@@ -0,0 +1,74 @@
+package solitaire.bench;
+
+import org.openjdk.jmh.annotations.*;
+import solitaire.GameState;
+
+import java.util.concurrent.TimeUnit;
+
+// moveCards for runs of different lengths and the foundation moves
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+    private static final int HEARTS = 0;
+    private static final int CLUBS = 26;
+    private static final int SPADES = 39;
+
+    @Param({"1", "4", "12"})
+    public int runLength;
+
+    private GameState runState;
+    private GameState foundationState;
+
+    @Setup
+    public void setup() {
+        // Piles 1 and 2 hold a black card of rank runLength + 1, and the alternating run
+        // from rank runLength down to the ace sits on pile 1, so it can move back and forth
+        int[] run = new int[runLength];
+        for (int i = 0; i < runLength; i++) {
+            int rank = runLength - 1 - i;
+            run[i] = (i % 2 == 0 ? HEARTS : SPADES) + rank;
+        }
+        int[] from = new int[runLength + 1];
+        from[0] = SPADES + runLength;
+        System.arraycopy(run, 0, from, 1, runLength);
+        int[][] piles = { from, { CLUBS + runLength }, {}, {}, {}, {}, {} };
+        runState = GameState.fromLayout(piles, new int[7], new int[0], new int[0], new int[0], new int[4][0]);
+
+        // All the hearts in pile 1, king at the bottom, and nothing on the foundations
+        int[] hearts = new int[13];
+        for (int i = 0; i < 13; i++) {
+            hearts[i] = HEARTS + 12 - i;
+        }
+        int[][] heartPiles = { hearts, {}, {}, {}, {}, {}, {} };
+        foundationState = GameState.fromLayout(heartPiles, new int[7], new int[0], new int[0], new int[0], new int[4][0]);
+    }
+
+    // Moves the run to the other pile and back again. Clearing the undo history keeps the journal from
+    // growing across millions of calls, which would add array copies and GC to the measurement.
+    @Benchmark
+    public boolean moveRunThereAndBack() {
+        boolean moved = runState.moveCards(0, 1, 1) & runState.moveCards(1, 1, 0);
+        runState.clearHistory();
+        return moved;
+    }
+
+    // Copies the foundation position; the baseline for playToFoundation
+    @Benchmark
+    public GameState copyState() {
+        return new GameState(foundationState);
+    }
+
+    // Plays all thirteen hearts to a foundation on a fresh copy
+    @Benchmark
+    public GameState playToFoundation() {
+        GameState state = new GameState(foundationState);
+        for (int i = 0; i < 13; i++) {
+            state.moveToFoundation(0, 0);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,77 @@
+package solitaire.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import solitaire.Card;
+import solitaire.CardImages;
+import solitaire.GameState;
+import solitaire.TableauPanel;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// Offscreen painting of the tableau and the card icon lookups behind it.
+// The card images are loaded from the solitaire jar before measuring, so real cards are drawn rather than placeholders.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+    private TableauPanel tableau;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private Card[] cards;
+
+    @Setup
+    public void setup() {
+        CardImages.load().join();
+        GameState state = new GameState(1);
+        tableau = new TableauPanel(state);
+        tableau.setSize(tableau.getPreferredSize());
+        image = new BufferedImage(tableau.getWidth(), tableau.getHeight(), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+
+        cards = new Card[52];
+        int count = 0;
+        for (int i = 0; i < 7; i++) {
+            for (Card card : state.getGamePile(i)) {
+                cards[count++] = card;
+            }
+        }
+        for (Card card : state.getDeck()) {
+            cards[count++] = card;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    // Paints all seven piles
+    @Benchmark
+    public BufferedImage paintTableau() {
+        tableau.paint(graphics);
+        return image;
+    }
+
+    // Paints one pile, as after a move that only touched that pile
+    @Benchmark
+    public BufferedImage paintOnePile() {
+        Graphics2D clipped = (Graphics2D) graphics.create();
+        clipped.setClip(tableau.getPileBounds(6));
+        tableau.paint(clipped);
+        clipped.dispose();
+        return image;
+    }
+
+    @Benchmark
+    public void cardIcons(Blackhole blackhole) {
+        for (Card card : cards) {
+            blackhole.consume(CardImages.getIcon(card, true));
+        }
+    }
+}
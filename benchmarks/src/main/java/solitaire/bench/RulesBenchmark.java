@@ -0,0 +1,90 @@
+package solitaire.bench;
+
+import org.openjdk.jmh.annotations.*;
+import solitaire.Card;
+import solitaire.Rank;
+import solitaire.Rules;
+import solitaire.Suit;
+
+import java.util.concurrent.TimeUnit;
+
+// Counts the card pairs that pass the stacking and foundation rules, out of all 52 x 52: enum comparisons on Card objects
+// against the bit tables in Rules
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RulesBenchmark {
+    private Card[] cards;
+    private int[] ids;
+
+    @Setup
+    public void setup() {
+        cards = new Card[52];
+        ids = new int[52];
+        int count = 0;
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                cards[count] = Card.of(suit, rank);
+                ids[count] = cards[count].getId();
+                count++;
+            }
+        }
+    }
+
+    @Benchmark
+    public int stackWithEnums() {
+        int matches = 0;
+        for (Card card : cards) {
+            for (Card on : cards) {
+                if (card.getColor() != on.getColor()
+                        && card.getRank().ordinal() + 1 == on.getRank().ordinal()) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int stackWithTables() {
+        int matches = 0;
+        for (int id : ids) {
+            for (int on : ids) {
+                if (Rules.canStack(id, on)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int foundationWithEnums() {
+        int matches = 0;
+        for (Card card : cards) {
+            for (Card on : cards) {
+                if (card.getSuit() == on.getSuit()
+                        && card.getRank().ordinal() == on.getRank().ordinal() + 1) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int foundationWithTables() {
+        int matches = 0;
+        for (int id : ids) {
+            for (int on : ids) {
+                if (Rules.canFollow(id, on)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+}
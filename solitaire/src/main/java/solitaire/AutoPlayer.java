@@ -0,0 +1,167 @@
+package solitaire;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import javax.swing.SwingUtilities;
+
+// Plays the moves a player would not want to make by hand: every safe move from a tableau pile to a foundation
+// (see GameState.isSafeFoundationMove), and once no tableau card is face down, the rest of the game.
+// Visible cards are left alone, since taking one changes which cards later draws turn up; only the
+// solver's line plays them.
+// Moves go through the public move methods, so each one can still be undone, but listeners
+// get a single notification for the whole run.
+// play does everything on the calling thread. start is for the event thread: the safe moves are cheap and
+// are played at once, but the search for the rest of the game runs in the background like HintService.
+public class AutoPlayer {
+    private final Solver solver = new Solver();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autoplay-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Solver backgroundSolver = new Solver(); // Only used on the search thread
+    private volatile int generation; // Bumped by every start and cancel, so stale results can be told apart
+    private Future<?> running;
+
+    public AutoPlayer() {
+        configure(solver);
+        configure(backgroundSolver);
+    }
+
+    private static void configure(Solver solver) {
+        // With every tableau card face up the solver finds a win almost at once
+        solver.setNodeLimit(200000);
+        solver.setTimeLimitMillis(2000);
+        solver.setMemoryLimitBytes(8L << 20);
+    }
+
+    // Returns the number of moves made
+    public int play(GameState state) {
+        state.beginBatch();
+        try {
+            int moveCount = playSafeMoves(state);
+            if (!state.isWon() && allFaceUp(state)) {
+                moveCount += finish(state);
+            }
+            return moveCount;
+        } finally {
+            state.endBatch();
+        }
+    }
+
+    public Future<?> start(GameState state) {
+        return start(state, () -> true);
+    }
+
+    // Plays the safe foundation moves now and, once every tableau card is face up, searches for the rest of the
+    // game on a snapshot in the background. The winning line is played on the event thread in one batch, unless
+    // cancel or start is called first, the game has changed by then, or canPlay returns false when it arrives.
+    // Call it from the event thread. Returns the search, which ends after its line has been posted to the event
+    // thread, or null if none was needed.
+    public Future<?> start(GameState state, BooleanSupplier canPlay) {
+        cancel();
+        state.beginBatch();
+        try {
+            playSafeMoves(state);
+        } finally {
+            state.endBatch();
+        }
+        if (state.isWon() || !allFaceUp(state)) {
+            return null;
+        }
+        GameState snapshot = new GameState(state);
+        int id = generation;
+        running = executor.submit(() -> search(state, snapshot, id, canPlay));
+        return running;
+    }
+
+    public void cancel() {
+        generation++;
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void search(GameState state, GameState snapshot, int id, BooleanSupplier canPlay) {
+        SolverResult result = backgroundSolver.solve(snapshot);
+        if (Thread.currentThread().isInterrupted() || !result.isSolved()) {
+            return;
+        }
+        long hash = snapshot.getZobristHash();
+        SwingUtilities.invokeLater(() -> {
+            if (id == generation && state.getZobristHash() == hash && canPlay.getAsBoolean()) {
+                state.beginBatch();
+                try {
+                    playAll(state, result.getMoves());
+                } finally {
+                    state.endBatch();
+                }
+            }
+        });
+    }
+
+    // Plays safe foundation moves from the tops of the tableau piles until there are none left,
+    // as Solver.findSafeMove does
+    private static int playSafeMoves(GameState state) {
+        int moveCount = 0;
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int i = 0; i < 7; i++) {
+                CardPile pile = state.getGamePile(i);
+                if (!pile.isEmpty() && playSafeMove(state, pile.peek(), i)) {
+                    moveCount++;
+                    moved = true;
+                }
+            }
+        }
+        return moveCount;
+    }
+
+    // Plays the top card of the pile to its foundation if that is safe
+    private static boolean playSafeMove(GameState state, Card card, int fromPileIndex) {
+        if (!state.isSafeFoundationMove(card)) {
+            return false;
+        }
+        for (int foundationIndex = 0; foundationIndex < 4; foundationIndex++) {
+            if (state.canMoveToFoundation(card, foundationIndex)) {
+                return state.moveToFoundation(fromPileIndex, foundationIndex);
+            }
+        }
+        return false;
+    }
+
+    private static boolean allFaceUp(GameState state) {
+        for (int i = 0; i < 7; i++) {
+            if (state.getGamePile(i).getFaceDownCount() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Plays a winning line found by the solver, which also deals with cards still in the deck
+    private int finish(GameState state) {
+        SolverResult result = solver.solve(state);
+        if (!result.isSolved()) {
+            return 0;
+        }
+        playAll(state, result.getMoves());
+        return result.getMoves().length;
+    }
+
+    private static void playAll(GameState state, int[] moves) {
+        for (int move : moves) {
+            state.applyMove(move);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package solitaire;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Command-line batch mode: deals seeded games and plays or solves them on every core.
+// Usage: java -cp <classes> solitaire.BatchSimulator [--games N] [--seed S] [--threads T]
+//        [--mode play|solve] [--nodes N] [--chunk C] [--record FILE]
+// --record appends every game (seed and moves played, or the solution found) to a GameRecordWriter log.
+public class BatchSimulator {
+    private static final String USAGE = "Usage: BatchSimulator [--games N] [--seed S] [--threads T] [--mode play|solve]"
+            + " [--nodes N] [--chunk C] [--record FILE]";
+
+    private long games = 100000;
+    private long firstSeed = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean solve = false;
+    private long nodeLimit = 100000;
+    private int chunkSize = 1024;
+    private GameRecordWriter recorder;
+
+    // Everything a worker thread reuses from one game to the next
+    private class Worker {
+        final GameState state = new GameState(0);
+        final GreedyPlayer player = new GreedyPlayer();
+        final Solver solver = new Solver();
+
+        Worker() {
+            solver.setNodeLimit(nodeLimit);
+            solver.setTimeLimitMillis(60000); // The node limit is what bounds each game
+            solver.setMemoryLimitBytes(16L << 20);
+        }
+
+        BatchStats run(long fromSeed, long toSeed) throws IOException {
+            BatchStats stats = new BatchStats();
+            for (long seed = fromSeed; seed < toSeed; seed++) {
+                state.deal(seed);
+                if (solve) {
+                    SolverResult result = solver.solve(state);
+                    stats.addGame(result.isSolved(), result.getMoves().length, result.getNodes());
+                    if (recorder != null) {
+                        recorder.write(seed, result.getMoves(), result.getMoves().length);
+                    }
+                    if (result.getStatus() == SolverResult.Status.UNSOLVABLE) {
+                        stats.addUnsolvable();
+                    }
+                } else {
+                    int moves = player.play(state);
+                    stats.addGame(state.isWon(), moves, 0);
+                    if (recorder != null) {
+                        recorder.write(seed, player.getPlayedMoves(), moves);
+                    }
+                }
+            }
+            return stats;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException, IOException {
+        BatchSimulator simulator = new BatchSimulator();
+        if (args.length % 2 != 0) {
+            System.err.println("Missing value for " + args[args.length - 1]);
+            System.err.println(USAGE);
+            return;
+        }
+        String recordPath = null;
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games":
+                    simulator.games = Long.parseLong(value);
+                    break;
+                case "--seed":
+                    simulator.firstSeed = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    simulator.threads = Integer.parseInt(value);
+                    break;
+                case "--mode":
+                    if (!value.equals("play") && !value.equals("solve")) {
+                        System.err.println("Unknown mode: " + value);
+                        System.err.println(USAGE);
+                        return;
+                    }
+                    simulator.solve = value.equals("solve");
+                    break;
+                case "--nodes":
+                    simulator.nodeLimit = Long.parseLong(value);
+                    break;
+                case "--chunk":
+                    simulator.chunkSize = Integer.parseInt(value);
+                    break;
+                case "--record":
+                    recordPath = value;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println(USAGE);
+                    return;
+            }
+        }
+        if (recordPath != null) {
+            simulator.recorder = new GameRecordWriter(Paths.get(recordPath)); // Opened once the arguments are known good
+        }
+        try {
+            simulator.run();
+        } finally {
+            if (simulator.recorder != null) {
+                simulator.recorder.close();
+            }
+        }
+    }
+
+    // Splits the seeds into chunks, runs them on a work-stealing pool and prints running totals
+    public BatchStats run() throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        try {
+            return runChunks(pool);
+        } finally {
+            pool.shutdownNow(); // Stops the workers if a chunk failed; after a clean run they are all idle
+        }
+    }
+
+    private BatchStats runChunks(ExecutorService pool) throws InterruptedException, ExecutionException {
+        CompletionService<BatchStats> completed = new ExecutorCompletionService<>(pool);
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+        int chunks = 0;
+        for (long from = firstSeed; from < firstSeed + games; from += chunkSize) {
+            long chunkStart = from;
+            long chunkEnd = Math.min(from + chunkSize, firstSeed + games);
+            completed.submit(() -> workers.get().run(chunkStart, chunkEnd));
+            chunks++;
+        }
+
+        System.out.println("Running " + games + " games (" + (solve ? "solve" : "play") + ") on " + threads + " threads");
+        BatchStats total = new BatchStats();
+        long start = System.nanoTime();
+        long lastReport = start;
+        for (int i = 0; i < chunks; i++) {
+            total.merge(completed.take().get());
+            long now = System.nanoTime();
+            if (now - lastReport > 1000000000L || i == chunks - 1) {
+                lastReport = now;
+                double seconds = (now - start) / 1e9;
+                System.out.printf("%s | %.0f games/sec", total, total.getGames() / seconds);
+                if (solve) {
+                    System.out.printf(", %.0f nodes/sec", total.getTotalNodes() / seconds);
+                }
+                System.out.println();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,62 @@
+package solitaire;
+
+// Totals for a batch of simulated games. Each worker fills its own instance and the results are merged.
+public class BatchStats {
+    private long games;
+    private long wins;
+    private long unsolvable; // Proven unwinnable by the solver or its DealAnalyzer prefilter
+    private long totalMoves; // Moves played, or solution length for solved deals
+    private long totalNodes; // Solver nodes searched
+
+    public void addGame(boolean won, int moves, long nodes) {
+        games++;
+        if (won) {
+            wins++;
+            totalMoves += moves;
+        }
+        totalNodes += nodes;
+    }
+
+    public void addUnsolvable() {
+        unsolvable++;
+    }
+
+    public void merge(BatchStats other) {
+        games += other.games;
+        wins += other.wins;
+        unsolvable += other.unsolvable;
+        totalMoves += other.totalMoves;
+        totalNodes += other.totalNodes;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getUnsolvable() {
+        return unsolvable;
+    }
+
+    public long getTotalNodes() {
+        return totalNodes;
+    }
+
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    // Average number of moves in a won game
+    public double getAverageMoves() {
+        return wins == 0 ? 0 : (double) totalMoves / wins;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games, %.2f%% won, %d proven unwinnable, %.1f moves per win, %d nodes",
+                games, getWinRate() * 100, unsolvable, getAverageMoves(), totalNodes);
+    }
+}
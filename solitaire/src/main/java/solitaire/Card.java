@@ -1,14 +1,33 @@
 package solitaire;
 
-public class Card {
+// One of the 52 cards. Cards are immutable and shared: Card.of returns the same instance for
+// a suit and rank everywhere, and whether a card is face up is up to the pile holding it.
+public final class Card {
+    private static final Card[] CARDS = new Card[52];
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                Card card = new Card(suit, rank);
+                CARDS[card.getId()] = card;
+            }
+        }
+    }
+
     private final Suit suit;
     private final Rank rank;
-    private boolean isFaceUp;
 
-    public Card(Suit suit, Rank rank) {
+    private Card(Suit suit, Rank rank) {
         this.suit = suit;
         this.rank = rank;
-        this.isFaceUp = false;
+    }
+
+    public static Card of(Suit suit, Rank rank) {
+        return CARDS[suit.ordinal() * 13 + rank.ordinal()];
+    }
+
+    public static Card of(int id) {
+        return CARDS[id];
     }
 
     public Suit getSuit() {
@@ -19,24 +38,16 @@ public class Card {
         return rank;
     }
 
-    public boolean isFaceUp() {
-        return isFaceUp;
-    }
-    public void setFaceUp(boolean val){
-        isFaceUp = val;
-    }
-    public void flip() {
-        isFaceUp = !isFaceUp;
+    // Dense id (0-51) derived from the suit and rank ordinals
+    public int getId() {
+        return suit.ordinal() * 13 + rank.ordinal();
     }
+
     public CardColor getColor() {
-        if (suit == Suit.HEARTS || suit == Suit.DIAMONDS) {
-            return CardColor.RED;
-        } else {
-            return CardColor.BLACK;
-        }
+        return suit.getColor();
     }
     @Override
     public String toString() {
-        return (isFaceUp ? rank + " of " + suit : "Face Down");
+        return rank + " of " + suit;
     }
-}
\ No newline at end of file
+}
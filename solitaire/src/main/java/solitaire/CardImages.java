@@ -0,0 +1,172 @@
+package solitaire;
+
+import javax.imageio.ImageIO;
+import javax.swing.Icon;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Card images, decoded and scaled once so drawing a card is an array lookup and a blit.
+// The PNGs are classpath resources under /cardImages, so the jar runs from any directory.
+// Call load() early: it decodes the images in parallel on background threads. Until an image is ready its
+// icon paints a plain placeholder, so the frame can be laid out and shown without waiting for the decoding.
+public final class CardImages {
+    public static final int CARD_WIDTH = 73;
+    public static final int CARD_HEIGHT = 97;
+    // Selected cards are drawn 15% larger
+    public static final int SELECTED_WIDTH = (int) (CARD_WIDTH * 1.15);
+    public static final int SELECTED_HEIGHT = (int) (CARD_HEIGHT * 1.15);
+
+    private static final String IMAGE_DIR = "/cardImages/";
+
+    private static final int CARD_COUNT = Suit.values().length * Rank.values().length;
+
+    private static final CardIcon[] faces = new CardIcon[CARD_COUNT];
+    private static final CardIcon[] selectedFaces = new CardIcon[CARD_COUNT];
+    private static final CardIcon back = new CardIcon(CARD_WIDTH, CARD_HEIGHT);
+    private static final CardIcon selectedBack = new CardIcon(SELECTED_WIDTH, SELECTED_HEIGHT);
+
+    private static final Metrics.Timer LOAD_TIMER = Metrics.timer("cardImages.load");
+
+    private static CompletableFuture<Void> loading; // Set by the first call to load
+
+    static {
+        for (int i = 0; i < CARD_COUNT; i++) {
+            faces[i] = new CardIcon(CARD_WIDTH, CARD_HEIGHT);
+            selectedFaces[i] = new CardIcon(SELECTED_WIDTH, SELECTED_HEIGHT);
+        }
+    }
+
+    private CardImages() {
+    }
+
+    // An icon of fixed size that paints a placeholder until its image has been decoded
+    private static final class CardIcon implements Icon {
+        private static final Color PLACEHOLDER_FILL = new Color(235, 235, 235);
+
+        private final int width;
+        private final int height;
+        private volatile BufferedImage image;
+
+        CardIcon(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            BufferedImage current = image;
+            if (current != null) {
+                g.drawImage(current, x, y, null);
+                return;
+            }
+            g.setColor(PLACEHOLDER_FILL);
+            g.fillRoundRect(x, y, width - 1, height - 1, 8, 8);
+            g.setColor(Color.GRAY);
+            g.drawRoundRect(x, y, width - 1, height - 1, 8, 8);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return width;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return height;
+        }
+    }
+
+    // Starts decoding the images, one task per file spread over the available processors, and returns a future
+    // that completes once all of them are ready. Later calls return the same future.
+    // Repaint when it completes to replace the placeholders; a missing or unreadable image keeps its placeholder.
+    public static synchronized CompletableFuture<Void> load() {
+        if (loading != null) {
+            return loading;
+        }
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "card-images");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[CARD_COUNT + 1];
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                int id = Card.of(suit, rank).getId();
+                String imageName = rank.getRankString().toLowerCase() + "_of_" + suit.toString().toLowerCase() + ".png";
+                tasks[id] = CompletableFuture.runAsync(() -> decode(imageName, faces[id], selectedFaces[id]), pool);
+            }
+        }
+        tasks[CARD_COUNT] = CompletableFuture.runAsync(() -> decode("card_back.png", back, selectedBack), pool);
+        pool.shutdown(); // The threads exit once the queued tasks are done
+        loading = CompletableFuture.allOf(tasks);
+        return loading;
+    }
+
+    private static void decode(String imageName, CardIcon icon, CardIcon selectedIcon) {
+        long start = Metrics.start();
+        URL url = CardImages.class.getResource(IMAGE_DIR + imageName);
+        try {
+            BufferedImage image = url == null ? null : ImageIO.read(url);
+            if (image == null) {
+                System.err.println("Missing card image: " + IMAGE_DIR + imageName);
+                return;
+            }
+            icon.image = scale(image, icon.width, icon.height);
+            selectedIcon.image = scale(image, selectedIcon.width, selectedIcon.height);
+        } catch (IOException e) {
+            System.err.println("Could not read card image " + IMAGE_DIR + imageName + ": " + e);
+        } finally {
+            LOAD_TIMER.stop(start);
+        }
+    }
+
+    // Halves the image with bilinear filtering until one more halving would pass the target, then does the final
+    // step. A single bilinear step from the 500-pixel originals down to 73 would skip most of the source pixels.
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    // Returns the normal sized icon for a card, showing its back when it is face down
+    public static Icon getIcon(Card card, boolean faceUp) {
+        if (!faceUp) {
+            return back;
+        }
+        return faces[card.getId()];
+    }
+
+    // Returns the enlarged icon used to highlight a selected card
+    public static Icon getSelectedIcon(Card card, boolean faceUp) {
+        if (!faceUp) {
+            return selectedBack;
+        }
+        return selectedFaces[card.getId()];
+    }
+
+    public static Icon getBack() {
+        return back;
+    }
+}
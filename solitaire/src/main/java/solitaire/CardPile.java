@@ -0,0 +1,228 @@
+package solitaire;
+
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A pile of cards stored as card ids (0-51) in a byte array.
+// Face-down cards are always at the bottom, so one watermark (faceDownCount) records which cards are face up.
+// The public methods are a read-only view for the GUI; only GameState changes a pile.
+// Every mutator keeps a Zobrist hash of (pile id, position, card, face up) for all its cards up to date.
+public class CardPile implements Iterable<Card> {
+    public static final int CAPACITY = 52;
+
+    private final int pileId; // GameState pile id, part of every Zobrist key
+    private final byte[] ids = new byte[CAPACITY];
+    private int size;
+    private int faceDownCount; // Cards below this index are face down
+    private long hash;
+
+    CardPile(int pileId) {
+        this.pileId = pileId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Card get(int index) {
+        return Card.of(getId(index));
+    }
+
+    public int getId(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return ids[index];
+    }
+
+    public Card peek() {
+        return Card.of(peekId());
+    }
+
+    public int peekId() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return ids[size - 1];
+    }
+
+    public boolean isFaceUp(int index) {
+        return index >= faceDownCount;
+    }
+
+    public int getFaceDownCount() {
+        return faceDownCount;
+    }
+
+    public long getZobristHash() {
+        return hash;
+    }
+
+    // Zobrist key for one card at one position. The keys come from a SplitMix64 mix of the
+    // packed coordinates rather than a random table, so they cost no memory and are stable across runs.
+    private long key(int index, int id, boolean faceUp) {
+        long z = ((((long) pileId * CAPACITY + index) * CAPACITY + id) << 1 | (faceUp ? 1 : 0)) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void rehash() {
+        hash = 0;
+        for (int i = 0; i < size; i++) {
+            hash ^= key(i, ids[i], i >= faceDownCount);
+        }
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<Card>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Card next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return Card.of(ids[next++]);
+            }
+        };
+    }
+
+    // mutators used by GameState
+
+    // Pushes a face-up card
+    void push(int id) {
+        hash ^= key(size, id, true);
+        ids[size++] = (byte) id;
+    }
+
+    // Pushes a face-down card; only valid while every card in the pile is face down
+    void pushFaceDown(int id) {
+        hash ^= key(size, id, false);
+        ids[size++] = (byte) id;
+        faceDownCount = size;
+    }
+
+    int pop() {
+        int id = peekId();
+        size--;
+        hash ^= key(size, id, size >= faceDownCount);
+        if (faceDownCount > size) {
+            faceDownCount = size;
+        }
+        return id;
+    }
+
+    // Turns the top card face up if it is face down. Returns true if a card was flipped.
+    boolean flipTop() {
+        if (size == 0 || faceDownCount < size) {
+            return false;
+        }
+        faceDownCount--;
+        int id = ids[size - 1];
+        hash ^= key(size - 1, id, false) ^ key(size - 1, id, true);
+        return true;
+    }
+
+    // Turns the top card back face down; only valid while it is the only face-up card
+    void unflipTop() {
+        int id = ids[size - 1];
+        faceDownCount = size;
+        hash ^= key(size - 1, id, true) ^ key(size - 1, id, false);
+    }
+
+    // Moves the face-up cards from start to the top onto another pile in one copy, keeping their order
+    void moveRunTo(int start, CardPile to) {
+        int count = size - start;
+        for (int i = 0; i < count; i++) {
+            int id = ids[start + i];
+            hash ^= key(start + i, id, true);
+            to.hash ^= to.key(to.size + i, id, true);
+        }
+        System.arraycopy(ids, start, to.ids, to.size, count);
+        to.size += count;
+        size = start;
+    }
+
+    // Moves every card onto another pile in reverse order, like turning the pile over
+    void turnOverOnto(CardPile to, boolean faceUp) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (faceUp) {
+                to.push(ids[i]);
+            } else {
+                to.pushFaceDown(ids[i]);
+            }
+        }
+        size = 0;
+        faceDownCount = 0;
+        hash = 0;
+    }
+
+    // Copies another pile's cards
+    void copyFrom(CardPile other) {
+        System.arraycopy(other.ids, 0, ids, 0, other.size);
+        size = other.size;
+        faceDownCount = other.faceDownCount;
+        hash = other.hash;
+    }
+
+    // Writes the ids of the face-down cards to out from offset and returns how many there are
+    int copyFaceDownIds(byte[] out, int offset) {
+        System.arraycopy(ids, 0, out, offset, faceDownCount);
+        return faceDownCount;
+    }
+
+    // Replaces the face-down cards with ids read from source at offset; the face-up cards stay
+    void replaceFaceDownIds(byte[] source, int offset) {
+        System.arraycopy(source, offset, ids, 0, faceDownCount);
+        rehash();
+    }
+
+    // Writes size, face-down count and ids to out from offset. Returns the offset after the last byte.
+    int pack(byte[] out, int offset) {
+        out[offset] = (byte) size;
+        out[offset + 1] = (byte) faceDownCount;
+        System.arraycopy(ids, 0, out, offset + 2, size);
+        return offset + 2 + size;
+    }
+
+    // Restores a pile written by pack. Returns the offset after the last byte read.
+    int unpack(byte[] in, int offset) {
+        size = in[offset];
+        faceDownCount = in[offset + 1];
+        System.arraycopy(in, offset + 2, ids, 0, size);
+        rehash();
+        return offset + 2 + size;
+    }
+
+    void clear() {
+        size = 0;
+        faceDownCount = 0;
+        hash = 0;
+    }
+
+    // Shuffles the pile in place, the same way on every JVM for a given seed
+    void shuffle(long seed) {
+        Deals.shuffle(seed, ids, 0, size);
+        rehash();
+    }
+
+    // Replaces the pile with face-down cards copied from a raw id array
+    void load(byte[] source, int offset, int count) {
+        System.arraycopy(source, offset, ids, 0, count);
+        size = count;
+        faceDownCount = count;
+        rehash();
+    }
+}
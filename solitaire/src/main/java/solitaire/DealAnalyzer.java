@@ -0,0 +1,135 @@
+package solitaire;
+
+import java.util.Arrays;
+
+// Cheap proof that a position cannot be won, used to skip hopeless deals before a full search.
+// Every card has to reach a foundation. The analysis grows two sets of cards, each one bit per card in a long,
+// until neither changes: the cards that might ever move and the cards that might ever reach a foundation.
+// A card can first move only when
+//   - it can be reached: nothing that started above it in its pile is still there, or for the deck and visible
+//     cards, it comes up in the draw-three cycle (which only changes once one of those cards has been played)
+//   - and it has somewhere to go: the card below it in its suit could be on a foundation, a card it could
+//     stack on is or could become the top of a pile, or, for a king, another pile could empty.
+// A card can reach a foundation only once it can move and the card below it in its suit can reach one.
+// Each condition is necessary in any real game, so the sets over-approximate what can happen, and a card left
+// out of the second is proof the game is lost. The reverse does not hold: many lost deals are not caught.
+// A fresh deal takes a few microseconds. Reuse one instance per thread; it keeps scratch arrays between calls.
+public class DealAnalyzer {
+    private static final long ALL_CARDS = (1L << Deals.DECK_SIZE) - 1;
+
+    private final long[] above = new long[Deals.DECK_SIZE]; // Tableau cards that started above each card
+    private final int[] pileOf = new int[Deals.DECK_SIZE]; // Tableau pile of each card, or -1
+    private final int[] cardBelow = new int[Deals.DECK_SIZE]; // Face-up card directly below a face-up card, or -1
+    private final long[] pileCards = new long[7];
+    private long faceUp; // Face-up tableau cards
+    private long stock; // Deck, visible and discarded cards
+    private long reachableStock; // Stock cards that come up while no stock card has been played
+
+    // Returns the cards that can never reach a foundation from the given position, or 0 if none is proven stuck
+    public long stuckCards(GameState state) {
+        Arrays.fill(pileOf, -1);
+        Arrays.fill(cardBelow, -1);
+        faceUp = 0;
+        for (int i = 0; i < 7; i++) {
+            CardPile pile = state.getGamePile(i);
+            long cardsAbove = 0;
+            for (int j = pile.size() - 1; j >= 0; j--) {
+                int id = pile.getId(j);
+                above[id] = cardsAbove;
+                pileOf[id] = i;
+                cardsAbove |= 1L << id;
+                if (pile.isFaceUp(j)) {
+                    faceUp |= 1L << id;
+                    if (j > 0 && pile.isFaceUp(j - 1)) {
+                        cardBelow[id] = pile.getId(j - 1);
+                    }
+                }
+            }
+            pileCards[i] = cardsAbove;
+        }
+
+        long founded = 0; // Cards already on a foundation
+        for (int i = 0; i < 4; i++) {
+            founded |= mask(state.getFoundationPile(i));
+        }
+        long moved = founded;
+        CardPile deck = state.getDeck();
+        stock = mask(deck) | mask(state.getVisibleCards()) | mask(state.getDiscardedCards());
+        if (state.getVisibleCards().isEmpty() && state.getDiscardedCards().isEmpty()) {
+            // Drawing three at a time turns up every third card from the top and the last one,
+            // and turning the pile over keeps the order, so the same cards come up on every pass
+            reachableStock = 0;
+            for (int j = deck.size() - 3; j >= 0; j -= 3) {
+                reachableStock |= 1L << deck.getId(j);
+            }
+            if (!deck.isEmpty()) {
+                reachableStock |= 1L << deck.getId(0);
+            }
+        } else {
+            reachableStock = stock; // Part way through a pass; assume any of them can come up
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (long rest = ALL_CARDS & ~founded; rest != 0; rest &= rest - 1) {
+                int id = Long.numberOfTrailingZeros(rest);
+                long bit = 1L << id;
+                if ((moved & bit) == 0 && canMove(id, moved, founded)) {
+                    moved |= bit;
+                    changed = true;
+                }
+                if ((moved & bit) != 0 && (Rules.isAce(id) || (Rules.foundationPredecessor(id) & founded) != 0)) {
+                    founded |= bit;
+                    changed = true;
+                }
+            }
+        }
+        return ALL_CARDS & ~founded;
+    }
+
+    public boolean isUnwinnable(GameState state) {
+        return stuckCards(state) != 0;
+    }
+
+    private boolean canMove(int id, long moved, long founded) {
+        long bit = 1L << id;
+        if ((stock & bit) != 0) {
+            if ((reachableStock & bit) == 0 && (stock & moved) == 0) {
+                return false;
+            }
+        } else if ((faceUp & bit) != 0) {
+            if (cardBelow[id] != -1 && (moved & (1L << cardBelow[id])) != 0) {
+                return true; // Carried along by a run
+            }
+        } else if ((above[id] & ~moved) != 0) {
+            return false; // Still covered
+        }
+
+        if (Rules.isAce(id) || (Rules.foundationPredecessor(id) & founded) != 0) {
+            return true;
+        }
+        for (long targets = Rules.stackTargets(id); targets != 0; targets &= targets - 1) {
+            int target = Long.numberOfTrailingZeros(targets);
+            if ((moved & (1L << target)) != 0 || (pileOf[target] != -1 && (above[target] & ~moved) == 0)) {
+                return true;
+            }
+        }
+        if (Rules.isKing(id)) {
+            for (int i = 0; i < 7; i++) {
+                if (i != pileOf[id] && (pileCards[i] & ~moved) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long mask(CardPile pile) {
+        long mask = 0;
+        for (int i = 0; i < pile.size(); i++) {
+            mask |= 1L << pile.getId(i);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,157 @@
+package solitaire;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Seeds of deals the solver has already won, so a new game can start at once with a deal that can be won.
+// The pool is kept in a text file, one seed per line, so it survives restarts. When it falls below
+// LOW_WATER seeds a background thread solves random deals until it holds CAPACITY again.
+// Taking a seed never waits on the solver; if the pool is empty it hands out an unverified random seed.
+// The file is written once at the end of each refill and by shutdown, not on every seed taken. If the
+// program dies without shutdown, seeds taken since the last save come back next time, which only repeats a deal.
+public class DealPool {
+    public static final int CAPACITY = 32;
+    public static final int LOW_WATER = 8;
+
+    private static final long NODE_LIMIT = 200000; // Deals the solver can't win in this budget are skipped
+
+    private final Path file;
+    private final ArrayDeque<Long> seeds = new ArrayDeque<>();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deal-pool-refill");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Only used on the refill thread
+    private final Solver solver = new Solver();
+    private final GameState scratch = new GameState(0);
+    private boolean refilling; // Guarded by this
+    private boolean dirty; // Seeds taken or added since the last save, guarded by this
+    private final Object saveLock = new Object(); // Held while writing, so the file is written once at a time
+
+    // Loads the pool from file, if it exists, and starts refilling it if it is low
+    public DealPool(Path file) {
+        this.file = file;
+        solver.setNodeLimit(NODE_LIMIT);
+        solver.setMemoryLimitBytes(16L << 20);
+        try {
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.trim().isEmpty()) {
+                        seeds.add(Long.parseLong(line.trim()));
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Could not read the deal pool " + file + ": " + e);
+        }
+        refillIfLow();
+    }
+
+    // Removes and returns a seed whose deal is known to be winnable, or a random seed if the pool is empty
+    public long nextSeed() {
+        Long seed;
+        synchronized (this) {
+            seed = seeds.poll();
+            dirty |= seed != null;
+            refillIfLow();
+        }
+        return seed != null ? seed : ThreadLocalRandom.current().nextLong();
+    }
+
+    public synchronized int size() {
+        return seeds.size();
+    }
+
+    // Stops refilling, which interrupts a solve in progress, and saves the pool if it has changed.
+    // Call it before exiting so the seeds taken are not handed out again.
+    public void shutdown() {
+        synchronized (this) {
+            refiller.shutdownNow();
+        }
+        try {
+            refiller.awaitTermination(10, TimeUnit.SECONDS); // The solver checks for interrupts every few thousand nodes
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        save();
+    }
+
+    private synchronized void refillIfLow() {
+        if (!refilling && seeds.size() < LOW_WATER && !refiller.isShutdown()) {
+            refilling = true;
+            refiller.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (size() < CAPACITY && !Thread.currentThread().isInterrupted()) {
+                long seed = ThreadLocalRandom.current().nextLong();
+                scratch.deal(seed);
+                if (solver.solve(scratch).isSolved()) {
+                    synchronized (this) {
+                        seeds.add(seed);
+                        dirty = true;
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                refilling = false;
+            }
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            save(); // Otherwise shutdown saves; file channels refuse to write on an interrupted thread
+        }
+    }
+
+    // Rewrites the file through a temporary copy if the pool has changed, so a crash leaves either the old
+    // or the new pool. Each save writes the pool as it is when it starts, so the last one wins.
+    private void save() {
+        synchronized (saveLock) {
+            List<String> lines = new ArrayList<>();
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                for (long seed : seeds) {
+                    lines.add(Long.toString(seed));
+                }
+            }
+            if (!write(lines)) {
+                synchronized (this) {
+                    dirty = true; // Try again next time
+                }
+            }
+        }
+    }
+
+    private boolean write(List<String> lines) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not save the deal pool " + file + ": " + e);
+            return false;
+        }
+    }
+}
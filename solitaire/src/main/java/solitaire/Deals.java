@@ -0,0 +1,53 @@
+package solitaire;
+
+// Seeded deck orders as raw card ids (0-51), index 0 being the bottom of the deck.
+// The SplitMix64 generator is written out here, so a seed gives the same deal on every JVM.
+public final class Deals {
+    public static final int DECK_SIZE = 52;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final byte[] NEW_DECK = new byte[DECK_SIZE];
+
+    static {
+        for (int i = 0; i < DECK_SIZE; i++) {
+            NEW_DECK[i] = (byte) i;
+        }
+    }
+
+    private Deals() {
+    }
+
+    // Writes the deck order for one seed into out, starting at offset
+    public static void deal(long seed, byte[] out, int offset) {
+        System.arraycopy(NEW_DECK, 0, out, offset, DECK_SIZE);
+        shuffle(seed, out, offset, DECK_SIZE);
+    }
+
+    // Writes count deals back to back into out; deal i uses seed firstSeed + i
+    public static void fill(long firstSeed, int count, byte[] out) {
+        for (int i = 0; i < count; i++) {
+            deal(firstSeed + i, out, i * DECK_SIZE);
+        }
+    }
+
+    // Fisher-Yates shuffle of cards[offset, offset + length) driven by SplitMix64
+    public static void shuffle(long seed, byte[] cards, int offset, int length) {
+        long state = seed;
+        for (int i = length; i > 1; i--) {
+            state += GOLDEN_GAMMA;
+            // Multiply-shift maps the top 32 random bits onto [0, i) without a division
+            int j = (int) (((mix(state) >>> 32) * i) >>> 32);
+            byte temp = cards[offset + i - 1];
+            cards[offset + i - 1] = cards[offset + j];
+            cards[offset + j] = temp;
+        }
+    }
+
+    // SplitMix64 output function
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,104 @@
+package solitaire;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import java.awt.Graphics;
+
+// Glass pane that draws the cards being dragged above the rest of the frame, straight from the cached card icons.
+// Moving the cards repaints only the strip they left and the strip they entered, so the piles underneath
+// are never rebuilt during a drag. It has no mouse listeners, so clicks pass through to the components below.
+public class DragLayer extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final int FRAME_MILLIS = 16; // About 60 frames a second while cards slide back
+    private static final long RETURN_NANOS = 150_000_000L;
+
+    private final int[] ids = new int[CardPile.CAPACITY]; // Dragged cards, bottom first
+    private int count;
+    private int x; // Top left corner of the first dragged card
+    private int y;
+
+    private final Timer returnTimer = new Timer(FRAME_MILLIS, e -> stepReturn());
+    private int returnFromX;
+    private int returnFromY;
+    private int returnToX;
+    private int returnToY;
+    private long returnStart;
+    private Runnable onReturned;
+
+    public DragLayer() {
+        setOpaque(false);
+    }
+
+    // Picks up the cards of pile from fromIndex to the top, drawn with their top left corner at (x, y)
+    public void startDrag(CardPile pile, int fromIndex, int x, int y) {
+        count = 0;
+        for (int i = fromIndex; i < pile.size(); i++) {
+            ids[count++] = pile.getId(i);
+        }
+        this.x = x;
+        this.y = y;
+        repaintCards();
+    }
+
+    public void moveTo(int newX, int newY) {
+        repaintCards();
+        x = newX;
+        y = newY;
+        repaintCards();
+    }
+
+    // Number of cards being dragged, 0 when there are none
+    public int getCount() {
+        return count;
+    }
+
+    // True while cards are being dragged or sliding back
+    public boolean isActive() {
+        return count > 0;
+    }
+
+    // Removes the dragged cards, as after a legal drop
+    public void clear() {
+        returnTimer.stop();
+        repaintCards();
+        count = 0;
+    }
+
+    // Slides the cards back to (toX, toY), then clears them and runs onReturned
+    public void returnTo(int toX, int toY, Runnable onReturned) {
+        returnFromX = x;
+        returnFromY = y;
+        returnToX = toX;
+        returnToY = toY;
+        this.onReturned = onReturned;
+        returnStart = System.nanoTime();
+        returnTimer.start();
+    }
+
+    private void stepReturn() {
+        double progress = Math.min(1, (double) (System.nanoTime() - returnStart) / RETURN_NANOS);
+        double eased = 1 - (1 - progress) * (1 - progress); // Ease out, so the cards settle into place
+        moveTo(returnFromX + (int) Math.round((returnToX - returnFromX) * eased),
+                returnFromY + (int) Math.round((returnToY - returnFromY) * eased));
+        if (progress >= 1) {
+            clear();
+            Runnable done = onReturned;
+            onReturned = null;
+            done.run();
+        }
+    }
+
+    private void repaintCards() {
+        if (count > 0) {
+            repaint(x, y, CardImages.CARD_WIDTH, CardImages.CARD_HEIGHT + (count - 1) * TableauPanel.CARD_OFFSET);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        for (int i = 0; i < count; i++) {
+            CardImages.getIcon(Card.of(ids[i]), true).paintIcon(this, g, x, y + i * TableauPanel.CARD_OFFSET);
+        }
+    }
+}
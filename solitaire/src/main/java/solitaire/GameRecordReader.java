@@ -0,0 +1,142 @@
+package solitaire;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads a log written by GameRecordWriter. The file is memory-mapped rather than read onto the heap,
+// and opening it makes one pass to find where each game starts; after that any game can be read or
+// replayed directly by its index. Reads use absolute positions, so one reader can serve several threads.
+// A single mapping is limited to 2 GB, which holds several million games.
+public class GameRecordReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private int[] offsets = new int[1024]; // Start of each game in the file
+    private int gameCount;
+
+    public GameRecordReader(Path path) throws IOException {
+        GameRecordWriter.checkHeader(path);
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Game record file is larger than 2 GB: " + path);
+        }
+        data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        buildIndex((int) size);
+    }
+
+    private void buildIndex(int size) {
+        int position = GameRecordWriter.HEADER_SIZE;
+        while (position < size) {
+            int start = position;
+            position = skipVarint(position); // Seed
+            int count = (int) readVarint(position);
+            position = skipVarint(position);
+            for (int i = 0; i < count && position <= size; i++) {
+                position = skipVarint(position);
+            }
+            if (position > size) {
+                break; // A record cut short, as by a crash while writing, is left out
+            }
+            if (gameCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, gameCount * 2);
+            }
+            offsets[gameCount++] = start;
+        }
+    }
+
+    public int size() {
+        return gameCount;
+    }
+
+    public long getSeed(int game) {
+        return readVarint(position(game));
+    }
+
+    public int getMoveCount(int game) {
+        return (int) readVarint(skipVarint(position(game)));
+    }
+
+    // Copies the moves of a game into moves, which must be large enough, and returns how many there are
+    public int getMoves(int game, int[] moves) {
+        int position = skipVarint(position(game));
+        int count = (int) readVarint(position);
+        position = skipVarint(position);
+        for (int i = 0; i < count; i++) {
+            moves[i] = (int) readVarint(position);
+            position = skipVarint(position);
+        }
+        return count;
+    }
+
+    public int[] getMoves(int game) {
+        int[] moves = new int[getMoveCount(game)];
+        getMoves(game, moves);
+        return moves;
+    }
+
+    // Deals the game and plays its moves, returning the final position
+    public GameState replay(int game) {
+        GameState state = GameState.fromSeed(getSeed(game));
+        replayMoves(game, state);
+        return state;
+    }
+
+    // Same as replay(int), reusing an existing state
+    public void replay(int game, GameState state) {
+        state.deal(getSeed(game));
+        replayMoves(game, state);
+    }
+
+    private void replayMoves(int game, GameState state) {
+        int position = skipVarint(position(game));
+        int count = (int) readVarint(position);
+        position = skipVarint(position);
+        for (int i = 0; i < count; i++) {
+            if (!state.applyMove((int) readVarint(position))) {
+                throw new IllegalStateException("Game " + game + " has an illegal move at " + i);
+            }
+            position = skipVarint(position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int position(int game) {
+        if (game < 0 || game >= gameCount) {
+            throw new IndexOutOfBoundsException("Game: " + game + ", Games: " + gameCount);
+        }
+        return offsets[game];
+    }
+
+    private long readVarint(int position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (position >= data.limit()) {
+                return 0;
+            }
+            b = data.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    // Returns the position just after the varint at position
+    private int skipVarint(int position) {
+        while (position < data.limit() && data.get(position) < 0) {
+            position++;
+        }
+        return position + 1;
+    }
+}
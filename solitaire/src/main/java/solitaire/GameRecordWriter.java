@@ -0,0 +1,135 @@
+package solitaire;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends games to a binary log: the seed followed by the moves that were played from its deal.
+// File layout: a 5-byte header (MAGIC, VERSION), then one record per game with no padding:
+//   varint seed (as an unsigned 64-bit value), varint move count, one varint per move (Moves encoding).
+// A move takes at most 3 bytes, so a typical game costs a few hundred bytes. Read it back with GameRecordReader.
+public class GameRecordWriter implements Closeable {
+    static final int MAGIC = 0x534F4C52; // "SOLR"
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[256];
+
+    // Opens the log for appending, creating it with a header if it does not exist yet.
+    // A record cut short at the end, as by a crash while writing, is cut off first: GameRecordReader stops
+    // there, so anything appended after it could not be read.
+    public GameRecordWriter(Path path) throws IOException {
+        boolean isNew = !Files.exists(path) || Files.size(path) == 0;
+        if (!isNew) {
+            checkHeader(path);
+            long end = completeLength(path);
+            if (end < Files.size(path)) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+            }
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND, StandardOpenOption.WRITE), 1 << 16);
+        if (isNew) {
+            out.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION).array());
+        }
+    }
+
+    static void checkHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.get() != VERSION) {
+                throw new IOException("Not a game record file: " + path);
+            }
+        }
+    }
+
+    // Length of the file up to the end of its last complete record, found by reading the records in order
+    private static long completeLength(Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            for (int i = 0; i < HEADER_SIZE; i++) {
+                in.read();
+            }
+            long[] position = { HEADER_SIZE }; // Set to -1 once the file ends
+            long end = HEADER_SIZE;
+            while (true) {
+                readVarint(in, position); // Seed
+                long count = readVarint(in, position);
+                for (long i = 0; i < count && position[0] >= 0; i++) {
+                    readVarint(in, position);
+                }
+                if (position[0] < 0) {
+                    return end;
+                }
+                end = position[0];
+            }
+        }
+    }
+
+    private static long readVarint(InputStream in, long[] position) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                position[0] = -1;
+                return 0;
+            }
+            position[0]++;
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+    }
+
+    // Appends one game. Safe to call from several threads; each record is written whole.
+    public synchronized void write(long seed, int[] moves, int count) throws IOException {
+        if (buffer.length < 20 + count * 3) {
+            buffer = new byte[20 + count * 3];
+        }
+        int length = putVarint(buffer, 0, seed);
+        length = putVarint(buffer, length, count);
+        for (int i = 0; i < count; i++) {
+            length = putVarint(buffer, length, Moves.move(moves[i]));
+        }
+        out.write(buffer, 0, length);
+    }
+
+    public void write(GameState state) throws IOException {
+        int[] moves = state.getMoveHistory();
+        write(state.getSeed(), moves, moves.length);
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    // LEB128: seven bits per byte, low bits first, high bit set on every byte but the last
+    private static int putVarint(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+}
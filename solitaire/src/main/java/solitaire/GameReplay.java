@@ -0,0 +1,88 @@
+package solitaire;
+
+import java.util.Arrays;
+
+// A recorded game that can jump to any move. Building it replays the game once and keeps a packed
+// snapshot (GameState.pack, at most GameState.PACKED_SIZE bytes) every interval moves next to the move list.
+// seek restores the nearest snapshot at or before the target and plays at most interval - 1 moves from there.
+// A smaller interval costs more memory and gives faster seeks.
+// SolitaireGUI uses it to scrub through a recorded game (-Dsolitaire.replay).
+public class GameReplay {
+    private final long seed;
+    private final int[] moves;
+    private final int interval;
+    private final byte[] snapshots; // Packed positions after 0, interval, 2 * interval, ... moves
+    private final int[] snapshotOffsets;
+
+    public GameReplay(long seed, int[] moves, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1: " + interval);
+        }
+        this.seed = seed;
+        this.moves = moves.clone();
+        this.interval = interval;
+
+        int count = moves.length / interval + 1;
+        byte[] packed = new byte[count * GameState.PACKED_SIZE];
+        snapshotOffsets = new int[count + 1];
+        GameState state = GameState.fromSeed(seed);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            snapshotOffsets[i] = size;
+            size += state.pack(packed, size);
+            for (int move = i * interval; move < Math.min((i + 1) * interval, moves.length); move++) {
+                play(state, move);
+            }
+        }
+        snapshotOffsets[count] = size;
+        snapshots = Arrays.copyOf(packed, size);
+    }
+
+    // Loads a game from a record log
+    public static GameReplay of(GameRecordReader reader, int game, int interval) {
+        return new GameReplay(reader.getSeed(game), reader.getMoves(game), interval);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    // Bytes used by the snapshots
+    public int getSnapshotBytes() {
+        return snapshots.length;
+    }
+
+    // Sets state to the position after the first moveIndex moves (0 is the deal), with this game's seed.
+    // The replayed moves are not added to the undo history, which is left empty.
+    // Listeners on state get a single notification.
+    public void seek(int moveIndex, GameState state) {
+        if (moveIndex < 0 || moveIndex > moves.length) {
+            throw new IndexOutOfBoundsException("Move: " + moveIndex + ", Moves: " + moves.length);
+        }
+        int snapshot = moveIndex / interval;
+        state.beginBatch();
+        try {
+            state.unpack(snapshots, snapshotOffsets[snapshot]);
+            state.setSeed(seed);
+            for (int move = snapshot * interval; move < moveIndex; move++) {
+                state.makeMove(moves[move]); // Checked when the snapshots were built
+            }
+        } finally {
+            state.endBatch();
+        }
+    }
+
+    private void play(GameState state, int move) {
+        if (!state.applyMove(moves[move])) {
+            throw new IllegalStateException("Illegal move " + move + ": " + Moves.toString(moves[move]));
+        }
+    }
+}
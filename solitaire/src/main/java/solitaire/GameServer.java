@@ -0,0 +1,420 @@
+package solitaire;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless server that hosts many games in one JVM over a line protocol on a loopback socket.
+// Usage: java -cp <classes> solitaire.GameServer [--port P] [--idleSeconds S] [--expireMinutes M]
+//
+// Each connection gets its own thread: a virtual thread on Java 21 and later, a pooled platform thread before.
+// Platform threads are capped at MAX_PLATFORM_CONNECTIONS; a connection beyond that gets "ERR server busy".
+// One command per line, answered by one line starting with OK or ERR:
+//   NEW [seed]                  deal a game and attach to it             OK <session> <seed>
+//   ATTACH <session>            continue a game, as after reconnecting   OK <session>
+//   DRAW                        drawFromDeck
+//   MOVE <from> <index> <to>    moveCards between tableau piles 0-6
+//   PLAY <to>                   moveCardFromVisibleCardsToPile
+//   FOUNDATION <from> <f>       moveToFoundation, or from the visible cards when from is 7 (GameState.VISIBLE_PILE)
+//   UNDO, REDO
+//   STATE                       the position, see describe
+//   STATS                       session counts and command latency
+//   CLOSE                       end the game and drop its session
+//   QUIT                        close the connection, keeping the session
+// A session left idle for --idleSeconds is evicted: its GameState is dropped and only the packed position
+// (GameState.pack, at most PACKED_SIZE bytes) is kept, so a parked game costs about a hundred bytes.
+// The next command unpacks it again. The undo history does not survive eviction.
+// A session unused for --expireMinutes is removed entirely.
+// Command latency is the server.command timer; run with -Dsolitaire.metrics=true to record it.
+public class GameServer implements Closeable {
+    public static final int DEFAULT_PORT = 7777;
+    public static final int MAX_PLATFORM_CONNECTIONS = 1024;
+
+    private static final Metrics.Timer COMMAND_TIMER = Metrics.timer("server.command");
+    private static final Metrics.Timer RESTORE_TIMER = Metrics.timer("server.restoreSession");
+
+    private final long idleNanos;
+    private final long expireNanos;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSessionId = new AtomicLong(1);
+    private final AtomicInteger liveSessions = new AtomicInteger(); // Sessions holding a GameState
+    private final ExecutorService connections = newConnectionExecutor();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet(); // Open connections, closed by close()
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-server-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    public GameServer(long idleMillis, long expireMillis) {
+        idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        expireNanos = TimeUnit.MILLISECONDS.toNanos(expireMillis);
+    }
+
+    // A game and the connection-independent state around it. All access holds the session's lock;
+    // commands are short and never block inside it.
+    private final class Session {
+        final long id;
+        final long seed;
+        GameState state; // Null while evicted
+        byte[] packed; // The position while evicted
+        long lastUsed;
+
+        Session(long id, long seed) {
+            this.id = id;
+            this.seed = seed;
+            state = GameState.fromSeed(seed);
+            lastUsed = System.nanoTime();
+            liveSessions.incrementAndGet();
+        }
+
+        // The game, unpacked again if it was evicted. Callers hold the lock.
+        GameState state() {
+            if (state == null) {
+                long start = Metrics.start();
+                state = GameState.fromPacked(seed, packed, 0);
+                packed = null;
+                liveSessions.incrementAndGet();
+                RESTORE_TIMER.stop(start);
+            }
+            lastUsed = System.nanoTime();
+            return state;
+        }
+
+        // Packs the game if it has been idle too long. Returns true if the whole session has expired.
+        synchronized boolean sweep(long now) {
+            if (now - lastUsed >= expireNanos) {
+                close();
+                return true;
+            }
+            if (state != null && now - lastUsed >= idleNanos) {
+                byte[] buffer = new byte[GameState.PACKED_SIZE];
+                int size = state.pack(buffer, 0);
+                packed = size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+                state = null;
+                liveSessions.decrementAndGet();
+            }
+            return false;
+        }
+
+        synchronized void close() {
+            if (state != null) {
+                state = null;
+                liveSessions.decrementAndGet();
+            }
+            packed = null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = DEFAULT_PORT;
+        long idleSeconds = 60;
+        long expireMinutes = 24 * 60;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--idleSeconds":
+                    idleSeconds = Long.parseLong(value);
+                    break;
+                case "--expireMinutes":
+                    expireMinutes = Long.parseLong(value);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        GameServer server = new GameServer(TimeUnit.SECONDS.toMillis(idleSeconds), TimeUnit.MINUTES.toMillis(expireMinutes));
+        int boundPort = server.start(port);
+        System.out.println("Game server listening on 127.0.0.1:" + boundPort);
+        server.acceptor.join();
+    }
+
+    // Virtual threads let every connection block on its socket at little cost. They need Java 21, so the
+    // factory is looked up by reflection. On older runtimes a pool of up to MAX_PLATFORM_CONNECTIONS platform
+    // threads stands in; it has no queue, so a connection over the limit is rejected rather than left waiting.
+    static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return new ThreadPoolExecutor(0, MAX_PLATFORM_CONNECTIONS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "game-server-connection");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    // Listens on the loopback address, port 0 picking a free one, and returns the port
+    public synchronized int start(int port) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        serverSocket = new ServerSocket(port, 256, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptConnections, "game-server-accept");
+        acceptor.start();
+        long sweepNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(10), Math.min(idleNanos, expireNanos) / 4);
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true); // Replies are single small lines
+                clients.add(socket);
+                if (serverSocket.isClosed()) {
+                    socket.close(); // close() may have run before the socket was added
+                    return;
+                }
+                try {
+                    connections.execute(() -> serve(socket));
+                } catch (RejectedExecutionException e) {
+                    reject(socket);
+                }
+            } catch (SocketException e) {
+                return; // Closed by close()
+            } catch (IOException e) {
+                System.err.println("Could not accept a connection: " + e);
+            }
+        }
+    }
+
+    private void reject(Socket socket) {
+        clients.remove(socket);
+        try (Socket s = socket) {
+            s.getOutputStream().write("ERR server busy\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The client is gone already
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (it.next().sweep(now)) {
+                it.remove();
+            }
+        }
+    }
+
+    // Sessions in memory, evicted or not
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // Sessions whose GameState is unpacked
+    public int getLiveSessionCount() {
+        return liveSessions.get();
+    }
+
+    // Stops accepting and closes every open connection, which ends their threads' reads
+    @Override
+    public void close() throws IOException {
+        sweeper.shutdownNow();
+        connections.shutdownNow();
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket socket : clients) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+        clients.clear();
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            Session session = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                long start = Metrics.start();
+                String[] words = line.trim().split("\\s+");
+                String command = words[0].toUpperCase();
+                if (command.equals("QUIT")) {
+                    out.write("OK\n");
+                    out.flush();
+                    return;
+                }
+                String reply;
+                try {
+                    if (command.equals("NEW")) {
+                        long seed = words.length > 1 ? Long.parseLong(words[1]) : ThreadLocalRandom.current().nextLong();
+                        session = new Session(nextSessionId.getAndIncrement(), seed);
+                        sessions.put(session.id, session);
+                        reply = "OK " + session.id + " " + seed;
+                    } else if (command.equals("ATTACH")) {
+                        long id = Long.parseLong(argument(words, 1));
+                        Session found = sessions.get(id);
+                        if (found == null) {
+                            throw new IllegalArgumentException("no session " + id);
+                        }
+                        session = found;
+                        reply = "OK " + id;
+                    } else if (command.equals("STATS")) {
+                        reply = "OK sessions=" + sessions.size() + " live=" + liveSessions.get()
+                                + " commands=" + COMMAND_TIMER.getCount()
+                                + " p99Micros=" + COMMAND_TIMER.getPercentileNanos(0.99) / 1000.0;
+                    } else if (session == null) {
+                        throw new IllegalArgumentException("no game, send NEW or ATTACH first");
+                    } else if (command.equals("CLOSE")) {
+                        sessions.remove(session.id);
+                        session.close();
+                        session = null;
+                        reply = "OK";
+                    } else {
+                        synchronized (session) {
+                            if (session.state == null && session.packed == null) {
+                                session = null; // Closed on another connection
+                                throw new IllegalArgumentException("session was closed");
+                            }
+                            reply = play(session.state(), command, words);
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    reply = "ERR " + e.getMessage();
+                }
+                out.write(reply);
+                out.write('\n');
+                out.flush();
+                COMMAND_TIMER.stop(start);
+            }
+        } catch (IOException e) {
+            // The client went away; its session stays until it expires or is closed
+        } finally {
+            clients.remove(socket);
+        }
+    }
+
+    // Runs a game command. Throws IllegalArgumentException for bad input.
+    private static String play(GameState state, String command, String[] words) {
+        boolean legal;
+        switch (command) {
+            case "DRAW":
+                state.drawFromDeck();
+                legal = true;
+                break;
+            case "MOVE":
+                legal = state.moveCards(index(words, 1, GameState.GAME_PILE_COUNT),
+                        Integer.parseInt(argument(words, 2)), index(words, 3, GameState.GAME_PILE_COUNT));
+                break;
+            case "PLAY":
+                legal = state.moveCardFromVisibleCardsToPile(index(words, 1, GameState.GAME_PILE_COUNT));
+                break;
+            case "FOUNDATION":
+                int from = index(words, 1, GameState.VISIBLE_PILE + 1);
+                int foundation = index(words, 2, 4);
+                legal = from == GameState.VISIBLE_PILE ? state.moveToFoundationFromVisibleCards(foundation)
+                        : state.moveToFoundation(from, foundation);
+                break;
+            case "UNDO":
+                legal = state.undo();
+                break;
+            case "REDO":
+                legal = state.redo();
+                break;
+            case "STATE":
+                return "OK " + describe(state);
+            default:
+                throw new IllegalArgumentException("unknown command " + command);
+        }
+        return legal ? (state.isWon() ? "OK won" : "OK") : "ERR illegal move";
+    }
+
+    private static String argument(String[] words, int position) {
+        if (position >= words.length) {
+            throw new IllegalArgumentException("missing argument " + position);
+        }
+        return words[position];
+    }
+
+    private static int index(String[] words, int position, int limit) {
+        int value = Integer.parseInt(argument(words, position));
+        if (value < 0 || value >= limit) {
+            throw new IllegalArgumentException("argument " + position + " must be from 0 to " + (limit - 1));
+        }
+        return value;
+    }
+
+    // One line: deck=<cards left> discard=<count> visible=<cards> foundations=<tops> piles=<pile>/<pile>/...
+    // Cards are written as rank and suit letter (AS, 10H, QD), face-down cards as ##, and empty piles as -
+    static String describe(GameState state) {
+        StringBuilder text = new StringBuilder();
+        text.append("deck=").append(state.getDeck().size());
+        text.append(" discard=").append(state.getDiscardedCards().size());
+        text.append(" visible=");
+        appendPile(text, state.getVisibleCards());
+        text.append(" foundations=");
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            CardPile foundation = state.getFoundationPile(i);
+            text.append(foundation.isEmpty() ? "-" : cardName(foundation.peekId()));
+        }
+        text.append(" piles=");
+        for (int i = 0; i < GameState.GAME_PILE_COUNT; i++) {
+            if (i > 0) {
+                text.append('/');
+            }
+            appendPile(text, state.getGamePile(i));
+        }
+        return text.toString();
+    }
+
+    private static void appendPile(StringBuilder text, CardPile pile) {
+        if (pile.isEmpty()) {
+            text.append('-');
+            return;
+        }
+        for (int i = 0; i < pile.size(); i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(pile.isFaceUp(i) ? cardName(pile.getId(i)) : "##");
+        }
+    }
+
+    private static String cardName(int id) {
+        Card card = Card.of(id);
+        String rank = card.getRank().getRankString();
+        String shortRank = Character.isDigit(rank.charAt(0)) ? rank : rank.substring(0, 1).toUpperCase();
+        return shortRank + card.getSuit().name().charAt(0);
+    }
+}
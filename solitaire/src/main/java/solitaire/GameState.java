@@ -1,63 +1,309 @@
 package solitaire;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
+import java.util.Random;
 
 public class GameState {
-    private Stack<Card> deck; // Full deck of cards
-    private Stack<Card>[] gamePiles; // Seven piles on the tableau
-    private Stack<Card> visibleCards; // Stack for visible cards
-    private Stack<Card> discardedCards; // Discard pile
-    private Stack<Card>[] foundationPiles; // Four foundation piles
+    public static final int GAME_PILE_COUNT = 7; // Tableau piles
+    // Pile ids used for version stamps and change notifications.
+    // Game piles use their own index (0-6) and foundation i is FIRST_FOUNDATION + i.
+    public static final int VISIBLE_PILE = 7;
+    public static final int FIRST_FOUNDATION = 8;
+    public static final int DECK_PILE = 12;
+    public static final int DISCARD_PILE = 13;
+    public static final int PILE_ID_COUNT = 14;
+    // Largest number of bytes pack writes: the 52 cards plus a size and a face-down count per pile
+    public static final int PACKED_SIZE = CardPile.CAPACITY + 2 * PILE_ID_COUNT;
+
+    private long seed; // Seed of the current deal
+    private CardPile deck; // Full deck of cards
+    private CardPile[] gamePiles; // Seven piles on the tableau
+    private CardPile visibleCards; // Stack for visible cards
+    private CardPile discardedCards; // Discard pile
+    private CardPile[] foundationPiles; // Four foundation piles
+
+    // Timers for each move type, indexed by Moves.type, and for the other hot operations
+    private static final Metrics.Timer[] MOVE_TIMERS = {
+            Metrics.timer("gameState.draw"), Metrics.timer("gameState.visibleToPile"),
+            Metrics.timer("gameState.visibleToFoundation"), Metrics.timer("gameState.pileToPile"),
+            Metrics.timer("gameState.pileToFoundation")};
+    private static final Metrics.Timer UNDO_TIMER = Metrics.timer("gameState.undoMove");
+    private static final Metrics.Timer GENERATE_TIMER = Metrics.timer("gameState.generateMoves");
+    private static final Metrics.Timer DEAL_TIMER = Metrics.timer("gameState.deal");
+
+    private final long[] versions = new long[PILE_ID_COUNT]; // Change counter for every pile id
+    private int pendingChanges; // Bit mask of pile ids changed since the last notification
+    private int batchDepth; // Notifications wait while beginBatch calls are open
+    private final List<GameStateListener> listeners = new ArrayList<>();
+
+    // Undo records of the moves played through the public move methods, 4 bytes each.
+    // Entries below undoCount can be undone; those from undoCount to journalSize can be redone.
+    private int[] journal = new int[64];
+    private int undoCount;
+    private int journalSize;
 
-    @SuppressWarnings("unchecked")
     public GameState() {
+        // Pick a random seed, so any game can still be dealt again
+        this(new Random().nextLong());
+    }
+
+    // Creates a game whose deal is fully determined by the seed, on every JVM
+    public GameState(long seed) {
+        this(seed, true);
+    }
+
+    // Without deal the piles are left empty, for callers that fill them in themselves
+    private GameState(long seed, boolean deal) {
+        this.seed = seed;
+        createPiles();
+        if (deal) {
+            deal(seed);
+        }
+    }
+
+    public static GameState fromSeed(long seed) {
+        return new GameState(seed);
+    }
+
+    // Restores a position written by pack, from the game dealt with seed, without shuffling and dealing first
+    public static GameState fromPacked(long seed, byte[] in, int offset) {
+        GameState state = new GameState(seed, false);
+        state.unpack(in, offset);
+        return state;
+    }
+
+    // Builds a position directly from card ids, listed bottom to top, for tests and benchmarks.
+    // The first faceDownCounts[i] cards of game pile i are face down, as is the whole deck.
+    public static GameState fromLayout(int[][] gamePiles, int[] faceDownCounts, int[] deck,
+            int[] visibleCards, int[] discardedCards, int[][] foundationPiles) {
+        GameState state = new GameState(0, false);
+        for (int i = 0; i < gamePiles.length; i++) {
+            for (int j = 0; j < gamePiles[i].length; j++) {
+                if (j < faceDownCounts[i]) {
+                    state.gamePiles[i].pushFaceDown(gamePiles[i][j]);
+                } else {
+                    state.gamePiles[i].push(gamePiles[i][j]);
+                }
+            }
+        }
+        for (int id : deck) {
+            state.deck.pushFaceDown(id);
+        }
+        for (int id : visibleCards) {
+            state.visibleCards.push(id);
+        }
+        for (int id : discardedCards) {
+            state.discardedCards.push(id);
+        }
+        for (int i = 0; i < foundationPiles.length; i++) {
+            for (int id : foundationPiles[i]) {
+                state.foundationPiles[i].push(id);
+            }
+        }
+        return state;
+    }
+
+    private void createPiles() {
         // Initialize the game state
-        deck = new Stack<>();
-        gamePiles = new Stack[7]; // Array of 7 stacks
-        visibleCards = new Stack<>();
-        discardedCards = new Stack<>();
+        deck = new CardPile(DECK_PILE);
+        gamePiles = new CardPile[GAME_PILE_COUNT];
+        visibleCards = new CardPile(VISIBLE_PILE);
+        discardedCards = new CardPile(DISCARD_PILE);
 
         // Initialize each game pile
         for (int i = 0; i < gamePiles.length; i++) {
-            gamePiles[i] = new Stack<>();
+            gamePiles[i] = new CardPile(i);
         }
-        foundationPiles = new Stack[4];
+        foundationPiles = new CardPile[4];
         for (int i = 0; i < foundationPiles.length; i++) {
-            foundationPiles[i] = new Stack<>();
+            foundationPiles[i] = new CardPile(FIRST_FOUNDATION + i);
         }
+    }
 
+    // Starts a new game in place from a seeded shuffle, reusing this state's piles
+    public void deal(long seed) {
+        long start = Metrics.start();
+        this.seed = seed;
+        clearPiles();
         initializeDeck();
         shuffleDeck();
         dealInitialCards();
+        DEAL_TIMER.stop(start);
+        markAllChanged();
+    }
+
+    // Starts a new game in place from a raw deck order written by Deals, such as one deal of a Deals.fill buffer.
+    // seed is the one Deals shuffled that order from, so getSeed and the move history still describe this game.
+    public void deal(long seed, byte[] deckOrder, int offset) {
+        this.seed = seed;
+        clearPiles();
+        deck.load(deckOrder, offset, Deals.DECK_SIZE);
+        dealInitialCards();
+        markAllChanged();
     }
 
-    //REPLACE THE FOLLOWING 4 functions with your code from part 2
+    private void clearPiles() {
+        clearHistory();
+        deck.clear();
+        visibleCards.clear();
+        discardedCards.clear();
+        for (CardPile pile : gamePiles) {
+            pile.clear();
+        }
+        for (CardPile pile : foundationPiles) {
+            pile.clear();
+        }
+    }
+
+    private void markAllChanged() {
+        for (int i = 0; i < PILE_ID_COUNT; i++) {
+            markChanged(i);
+        }
+        fireChanges();
+    }
+
+    // Creates an independent copy of another game's piles. Cards are shared, so this only copies the pile arrays.
+    // Listeners, versions and the undo history are not copied.
+    public GameState(GameState other) {
+        seed = other.seed;
+        deck = copyPile(other.deck, DECK_PILE);
+        visibleCards = copyPile(other.visibleCards, VISIBLE_PILE);
+        discardedCards = copyPile(other.discardedCards, DISCARD_PILE);
+        gamePiles = new CardPile[other.gamePiles.length];
+        for (int i = 0; i < gamePiles.length; i++) {
+            gamePiles[i] = copyPile(other.gamePiles[i], i);
+        }
+        foundationPiles = new CardPile[other.foundationPiles.length];
+        for (int i = 0; i < foundationPiles.length; i++) {
+            foundationPiles[i] = copyPile(other.foundationPiles[i], FIRST_FOUNDATION + i);
+        }
+    }
+
+    // Makes this game a copy of another one in place, reusing this game's piles.
+    // The undo history is cleared and listeners are told every pile changed.
+    public void copyFrom(GameState other) {
+        seed = other.seed;
+        undoCount = 0;
+        journalSize = 0;
+        deck.copyFrom(other.deck);
+        visibleCards.copyFrom(other.visibleCards);
+        discardedCards.copyFrom(other.discardedCards);
+        for (int i = 0; i < gamePiles.length; i++) {
+            gamePiles[i].copyFrom(other.gamePiles[i]);
+        }
+        for (int i = 0; i < foundationPiles.length; i++) {
+            foundationPiles[i].copyFrom(other.foundationPiles[i]);
+        }
+        markAllChanged();
+    }
+
+    // Writes the position (every pile, but not the seed or undo history) to out from offset and
+    // returns the number of bytes written, at most PACKED_SIZE
+    public int pack(byte[] out, int offset) {
+        int end = offset;
+        for (int pileId = 0; pileId < PILE_ID_COUNT; pileId++) {
+            end = pile(pileId).pack(out, end);
+        }
+        return end - offset;
+    }
+
+    // Restores a position written by pack and returns the number of bytes read.
+    // The undo history is cleared and listeners are told every pile changed.
+    public int unpack(byte[] in, int offset) {
+        clearHistory();
+        int end = offset;
+        for (int pileId = 0; pileId < PILE_ID_COUNT; pileId++) {
+            end = pile(pileId).unpack(in, end);
+        }
+        markAllChanged();
+        return end - offset;
+    }
+
+    private CardPile pile(int pileId) {
+        if (pileId < VISIBLE_PILE) {
+            return gamePiles[pileId];
+        } else if (pileId == VISIBLE_PILE) {
+            return visibleCards;
+        } else if (pileId < DECK_PILE) {
+            return foundationPiles[pileId - FIRST_FOUNDATION];
+        } else if (pileId == DECK_PILE) {
+            return deck;
+        }
+        return discardedCards;
+    }
+
+    // Deals the cards a player cannot see (face-down tableau cards and the deck) into a random order among
+    // their own positions, giving one possible layout of the hidden cards. scratch needs room for 52 ids.
+    void shuffleHiddenCards(long shuffleSeed, byte[] scratch) {
+        int count = deck.copyFaceDownIds(scratch, 0);
+        for (CardPile pile : gamePiles) {
+            count += pile.copyFaceDownIds(scratch, count);
+        }
+        Deals.shuffle(shuffleSeed, scratch, 0, count);
+        deck.replaceFaceDownIds(scratch, 0);
+        int offset = deck.size();
+        for (CardPile pile : gamePiles) {
+            pile.replaceFaceDownIds(scratch, offset);
+            offset += pile.getFaceDownCount();
+        }
+        markAllChanged();
+    }
+
+    private CardPile copyPile(CardPile pile, int pileId) {
+        CardPile copy = new CardPile(pileId);
+        copy.copyFrom(pile);
+        return copy;
+    }
 
     // Creates a full deck of cards with all combinations of suits and ranks
     private void initializeDeck() {
-      //USE IMPLEMENTATION FROM PART 2
+        for (int id = 0; id < Deals.DECK_SIZE; id++) {
+            deck.pushFaceDown(id);
+        }
     }
 
-    // Shuffles the deck
+    // Shuffles the deck with the seed of the current deal
     private void shuffleDeck() {
-        java.util.Collections.shuffle(deck);
+        deck.shuffle(seed);
     }
 
     // Deals cards to the 7 game piles
     private void dealInitialCards() {
-        //USE IMPLEMENTATION FROM PART 2
+        // Pile i gets i + 1 cards, and only the top card of each pile is face up
+        for (int i = 0; i < gamePiles.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                gamePiles[i].pushFaceDown(deck.pop());
+            }
+            gamePiles[i].flipTop();
+        }
     }
 
     // Draws up to three cards from the deck into visibleCards
     public void drawFromDeck() {
-        //USE IMPLEMENTATION FROM PART 2
+        int record = execute(Moves.draw());
+        if (record != Moves.draw()) {
+            journal(record); // Drawing with no cards left anywhere changes nothing
+        }
+        fireChanges();
+    }
 
+    // Moves whatever is left in visibleCards to the discard pile, as drawFromDeck does before drawing.
+    // This is not a move of its own and cannot be undone, so it also clears the undo and redo history.
+    public void discardCardsAndClearHistory() {
+        clearHistory();
+        moveVisibleCardsToDiscard();
+        fireChanges();
     }
 
-    public void discardCards() {
-        //takes whatever cards are remaining in the visibleCards pile and moves them to the discardPiles
+    private void moveVisibleCardsToDiscard() {
+        if (visibleCards.isEmpty()) {
+            return;
+        }
+        visibleCards.moveRunTo(0, discardedCards);
+        markChanged(VISIBLE_PILE);
+        markChanged(DISCARD_PILE);
     }
 
     // new methods from part 3
@@ -67,62 +313,565 @@ public class GameState {
             A) The card is the opposite color and its rank is ONE smaller than the card it will be placed on
             B) The pile is empty and the card is a King
         */
-        return false;
+        return canStack(card.getId(), toPile);
+    }
+
+    // canCardMove on card ids, so move generation never touches Card objects
+    private boolean canStack(int id, int toPile) {
+        CardPile pile = gamePiles[toPile];
+        if (pile.isEmpty()) {
+            return Rules.isKing(id);
+        }
+        return pile.isFaceUp(pile.size() - 1) && Rules.canStack(id, pile.peekId());
     }
+
     // attempts to move top card from visible card stack to the toPileIndex
     // returns true if successful and false if unsuccessful
     public boolean moveCardFromVisibleCardsToPile(int toPileIndex) {
-        /* 
-            If a card can be moved, it should be popped from the visible cards pile and pushed to the pile it is added to
-            hints: use peek() and ordinal() to determine whether or not a card can be moved. 
-            USE the method you just made, canCardMove
-        */
-        return false;
+        if (visibleCards.isEmpty() || !canStack(visibleCards.peekId(), toPileIndex)) {
+            return false;
+        }
+        journal(execute(Moves.visibleToPile(toPileIndex)));
+        fireChanges();
+        return true;
     }
 
     // Move a card from one pile to another
     public boolean moveCards(int fromPileIndex, int cardIndex, int toPileIndex) {
-        Stack<Card> fromPile = gamePiles[fromPileIndex];
-
-        // Create a sub-stack of cards to move
-        ArrayList<Card> cardsToMove = new ArrayList<>(fromPile.subList(cardIndex, fromPile.size()));
-
-        Card bottomCard = cardsToMove.get(0); // the bottom card to be moved
-
-        // Check if bottomCard can be moved to the toPile
-        // if we can move the cards, add cardsToMove to the toPile and remove them from the fromPile
-        // Then, flip the next card in the fromPile stack
-
-        //return true if successful, false if unsuccessful
+        CardPile fromPile = gamePiles[fromPileIndex];
+        if (fromPileIndex == toPileIndex || cardIndex < 0 || cardIndex >= fromPile.size()) {
+            return false;
+        }
 
-        return false;
+        // the bottom card to be moved must be face up and fit on the other pile
+        if (!fromPile.isFaceUp(cardIndex) || !canStack(fromPile.getId(cardIndex), toPileIndex)) {
+            return false;
+        }
+        journal(execute(Moves.pileToPile(fromPileIndex, cardIndex, toPileIndex)));
+        fireChanges();
+        return true;
     }
-    private boolean canMoveToFoundation(Card card, int foundationIndex){
+    boolean canMoveToFoundation(Card card, int foundationIndex){
         //The foundation piles are the 4 piles that you have to build to win the game. 
         //In order for a card to be added to the pile, it needs to be one larger than the 
         //current top card of the foundation pile. It needs to be the same suit. 
         //If the foundation pile is empty, the new card must be an ace
+        return canPlayOnFoundation(card.getId(), foundationIndex);
+    }
 
-        //This method should return true if a card can be moved to the foundation, and false otherwise. 
-        
-        //hint: another good time to use peek() and ordinal()
-        return false;
+    private boolean canPlayOnFoundation(int id, int foundationIndex) {
+        CardPile foundationPile = foundationPiles[foundationIndex];
+        if (foundationPile.isEmpty()) {
+            return Rules.isAce(id);
+        }
+        return Rules.canFollow(id, foundationPile.peekId());
     }
-    public boolean moveToFoundation(int fromPileIndex, int foundationIndex) {
-        //check if we can move the top card of the fromPile to the foundation at foundationIndex
-        
-        //remember to flip the new top card if it is face down
 
-        //return true if successful, false otherwise
-        return false;
+    // Returns the foundation a card can be played to, or -1. Aces only try the first empty foundation.
+    private int foundationFor(int id) {
+        for (int i = 0; i < 4; i++) {
+            if (canPlayOnFoundation(id, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean moveToFoundation(int fromPileIndex, int foundationIndex) {
+        CardPile fromPile = gamePiles[fromPileIndex];
+        if (fromPile.isEmpty() || !fromPile.isFaceUp(fromPile.size() - 1)
+                || !canPlayOnFoundation(fromPile.peekId(), foundationIndex)) {
+            return false;
+        }
+        journal(execute(Moves.pileToFoundation(fromPileIndex, foundationIndex)));
+        fireChanges();
+        return true;
     }
 
     public boolean moveToFoundationFromVisibleCards(int foundationIndex) {
-        //similar to the above method, 
-        //move the top card from the visible cards to the foundation pile with index foundationIndex if possible
-    
-        //return true if successful, false otherwise. 
-        return false;
+        if (visibleCards.isEmpty() || !canPlayOnFoundation(visibleCards.peekId(), foundationIndex)) {
+            return false;
+        }
+        journal(execute(Moves.visibleToFoundation(foundationIndex)));
+        fireChanges();
+        return true;
+    }
+
+    // Applies a move encoded by Moves through the normal move methods. Returns true if it was legal.
+    public boolean applyMove(int move) {
+        switch (Moves.type(move)) {
+            case Moves.DRAW:
+                drawFromDeck();
+                return true;
+            case Moves.VISIBLE_TO_PILE:
+                return moveCardFromVisibleCardsToPile(Moves.to(move));
+            case Moves.VISIBLE_TO_FOUNDATION:
+                return moveToFoundationFromVisibleCards(Moves.to(move));
+            case Moves.PILE_TO_PILE:
+                return moveCards(Moves.from(move), Moves.cardIndex(move), Moves.to(move));
+            case Moves.PILE_TO_FOUNDATION:
+                return moveToFoundation(Moves.from(move), Moves.to(move));
+            default:
+                return false;
+        }
+    }
+
+    // Lists every legal move into the buffer, which needs room for Moves.MAX_MOVES, and returns how many there are.
+    // The order puts the most promising moves first: foundation moves, moves that turn over a card or empty a pile,
+    // plays from the visible cards, drawing, and finally moves that split a run. Nothing is allocated.
+    public int generateMoves(int[] moves) {
+        return generateMoves(moves, 0);
+    }
+
+    // Same as generateMoves(int[]), writing from moves[offset]
+    public int generateMoves(int[] moves, int offset) {
+        long start = Metrics.start();
+        int count = offset;
+
+        for (int i = 0; i < 7; i++) {
+            CardPile pile = gamePiles[i];
+            if (!pile.isEmpty()) {
+                int foundationIndex = foundationFor(pile.peekId());
+                if (foundationIndex != -1) {
+                    moves[count++] = Moves.pileToFoundation(i, foundationIndex);
+                }
+            }
+        }
+        if (!visibleCards.isEmpty()) {
+            int foundationIndex = foundationFor(visibleCards.peekId());
+            if (foundationIndex != -1) {
+                moves[count++] = Moves.visibleToFoundation(foundationIndex);
+            }
+        }
+
+        count = addPileMoves(moves, count, true);
+
+        if (!visibleCards.isEmpty()) {
+            int id = visibleCards.peekId();
+            for (int to = 0; to < 7; to++) {
+                if (canStack(id, to)) {
+                    moves[count++] = Moves.visibleToPile(to);
+                }
+            }
+        }
+
+        if (!deck.isEmpty() || !discardedCards.isEmpty() || !visibleCards.isEmpty()) {
+            moves[count++] = Moves.draw();
+        }
+
+        count = addPileMoves(moves, count, false);
+        GENERATE_TIMER.stop(start);
+        return count - offset;
+    }
+
+    // Adds tableau moves that take the whole face-up run (wholeRuns) or only part of it
+    private int addPileMoves(int[] moves, int count, boolean wholeRuns) {
+        for (int from = 0; from < 7; from++) {
+            CardPile pile = gamePiles[from];
+            int firstFaceUp = pile.getFaceDownCount();
+            int start = wholeRuns ? firstFaceUp : firstFaceUp + 1;
+            int end = wholeRuns ? Math.min(firstFaceUp + 1, pile.size()) : pile.size();
+            for (int cardIndex = start; cardIndex < end; cardIndex++) {
+                int id = pile.getId(cardIndex);
+                for (int to = 0; to < 7; to++) {
+                    if (to != from && canStack(id, to)) {
+                        moves[count++] = Moves.pileToPile(from, cardIndex, to);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // Plays a legal move, such as one from generateMoves, without checking it again.
+    // Returns an undo record for undoMove; Moves.move(record) gives back the move itself.
+    // makeMove and undoMove leave the undo history alone, so searches can use them on a copy of the game.
+    public int makeMove(int move) {
+        int record = execute(move);
+        fireChanges();
+        return record;
+    }
+
+    // Takes back the last move played by makeMove, given the record it returned
+    public void undoMove(int record) {
+        revert(record);
+        fireChanges();
+    }
+
+    public boolean canUndo() {
+        return undoCount > 0;
+    }
+
+    public boolean canRedo() {
+        return undoCount < journalSize;
+    }
+
+    // Forgets the undo and redo history but keeps the position. Afterwards getMoveHistory no longer
+    // leads from the deal to this position.
+    public void clearHistory() {
+        undoCount = 0;
+        journalSize = 0;
+    }
+
+    // Takes back the last move played through the public move methods. Returns false if there is none.
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        revert(journal[--undoCount]);
+        fireChanges();
+        return true;
+    }
+
+    // Plays the last undone move again. Returns false if there is none.
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        journal[undoCount] = execute(Moves.move(journal[undoCount]));
+        undoCount++;
+        fireChanges();
+        return true;
+    }
+
+    // The moves played through the public move methods since the deal, minus any undone ones.
+    // Replaying them with applyMove on fromSeed(getSeed()) reproduces the current position.
+    public int[] getMoveHistory() {
+        int[] moves = new int[undoCount];
+        for (int i = 0; i < undoCount; i++) {
+            moves[i] = Moves.move(journal[i]);
+        }
+        return moves;
+    }
+
+    // Records a move played through the public move methods; a new move discards the redo entries
+    private void journal(int record) {
+        if (undoCount == journal.length) {
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        }
+        journal[undoCount++] = record;
+        journalSize = undoCount;
+    }
+
+    // Restores the piles changed by the move an undo record describes, and marks them changed
+    private void revert(int record) {
+        long start = Metrics.start();
+        int from = Moves.from(record);
+        int to = Moves.to(record);
+        switch (Moves.type(record)) {
+            case Moves.DRAW:
+                if ((record & Moves.RECYCLED) != 0) {
+                    deck.turnOverOnto(discardedCards, true);
+                    markChanged(DECK_PILE);
+                    markChanged(DISCARD_PILE);
+                }
+                for (int i = Moves.count(record); i > 0; i--) {
+                    deck.pushFaceDown(visibleCards.pop());
+                    markChanged(DECK_PILE);
+                    markChanged(VISIBLE_PILE);
+                }
+                int discarded = Moves.discarded(record);
+                if (discarded > 0) {
+                    discardedCards.moveRunTo(discardedCards.size() - discarded, visibleCards);
+                    markChanged(VISIBLE_PILE);
+                    markChanged(DISCARD_PILE);
+                }
+                break;
+            case Moves.VISIBLE_TO_PILE:
+                visibleCards.push(gamePiles[to].pop());
+                markChanged(VISIBLE_PILE);
+                markChanged(to);
+                break;
+            case Moves.VISIBLE_TO_FOUNDATION:
+                visibleCards.push(foundationPiles[to].pop());
+                markChanged(VISIBLE_PILE);
+                markChanged(FIRST_FOUNDATION + to);
+                break;
+            case Moves.PILE_TO_PILE:
+                if ((record & Moves.FLIPPED) != 0) {
+                    gamePiles[from].unflipTop();
+                }
+                CardPile toPile = gamePiles[to];
+                toPile.moveRunTo(toPile.size() - Moves.count(record), gamePiles[from]);
+                markChanged(from);
+                markChanged(to);
+                break;
+            case Moves.PILE_TO_FOUNDATION:
+                if ((record & Moves.FLIPPED) != 0) {
+                    gamePiles[from].unflipTop();
+                }
+                gamePiles[from].push(foundationPiles[to].pop());
+                markChanged(from);
+                markChanged(FIRST_FOUNDATION + to);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown move: " + record);
+        }
+        UNDO_TIMER.stop(start);
+    }
+
+    // Carries out a move that has already been checked and marks the piles it changes.
+    // Every move method goes through here, so they all share one implementation of the rules' effects.
+    private int execute(int move) {
+        long start = Metrics.start();
+        int record = perform(move);
+        MOVE_TIMERS[Moves.type(move)].stop(start);
+        return record;
+    }
+
+    private int perform(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        switch (Moves.type(move)) {
+            case Moves.DRAW:
+                return executeDraw(move);
+            case Moves.VISIBLE_TO_PILE:
+                gamePiles[to].push(visibleCards.pop());
+                markChanged(VISIBLE_PILE);
+                markChanged(to);
+                return move;
+            case Moves.VISIBLE_TO_FOUNDATION:
+                foundationPiles[to].push(visibleCards.pop());
+                markChanged(VISIBLE_PILE);
+                markChanged(FIRST_FOUNDATION + to);
+                return move;
+            case Moves.PILE_TO_PILE: {
+                // Copy the run straight onto the other pile, then flip the next card in the fromPile
+                CardPile fromPile = gamePiles[from];
+                int runLength = fromPile.size() - Moves.cardIndex(move);
+                fromPile.moveRunTo(Moves.cardIndex(move), gamePiles[to]);
+                boolean flipped = fromPile.flipTop();
+                markChanged(from);
+                markChanged(to);
+                return Moves.withCounts(flipped ? move | Moves.FLIPPED : move, runLength, 0);
+            }
+            case Moves.PILE_TO_FOUNDATION: {
+                CardPile fromPile = gamePiles[from];
+                foundationPiles[to].push(fromPile.pop());
+                boolean flipped = fromPile.flipTop();
+                markChanged(from);
+                markChanged(FIRST_FOUNDATION + to);
+                return flipped ? move | Moves.FLIPPED : move;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown move: " + move);
+        }
+    }
+
+    private int executeDraw(int move) {
+        int discarded = visibleCards.size();
+        moveVisibleCardsToDiscard();
+        if (deck.isEmpty()) {
+            if (discardedCards.isEmpty()) {
+                return move;
+            }
+            // Turn the discard pile back over to form a new deck
+            discardedCards.turnOverOnto(deck, false);
+            markChanged(DECK_PILE);
+            markChanged(DISCARD_PILE);
+            return Moves.withCounts(move | Moves.RECYCLED, 0, discarded);
+        }
+        int drawn = 0;
+        for (; drawn < 3 && !deck.isEmpty(); drawn++) {
+            visibleCards.push(deck.pop());
+        }
+        markChanged(DECK_PILE);
+        markChanged(VISIBLE_PILE);
+        return Moves.withCounts(move, drawn, discarded);
+    }
+
+    // Returns the number of cards of the given suit already on the foundations
+    public int getFoundationCount(Suit suit) {
+        for (CardPile foundationPile : foundationPiles) {
+            if (!foundationPile.isEmpty() && foundationPile.peek().getSuit() == suit) {
+                return foundationPile.size();
+            }
+        }
+        return 0;
+    }
+
+    // A card is safe to play to its foundation when no card that could still be stacked on it is left:
+    // aces and twos always are, otherwise both opposite-colour suits must be built up to one rank below it
+    boolean isSafeFoundationMove(Card card) {
+        int rank = card.getRank().ordinal();
+        if (rank <= Rank.TWO.ordinal()) {
+            return true;
+        }
+        for (Suit suit : Suit.values()) {
+            if (suit.getColor() != card.getColor() && getFoundationCount(suit) < rank) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isWon() {
+        int total = 0;
+        for (CardPile foundationPile : foundationPiles) {
+            total += foundationPile.size();
+        }
+        return total == CardPile.CAPACITY;
+    }
+
+    // position identity
+
+    // 64-bit Zobrist hash of the whole position. Each pile keeps its part up to date on every change,
+    // so this only combines fourteen values.
+    public long getZobristHash() {
+        long hash = deck.getZobristHash() ^ visibleCards.getZobristHash() ^ discardedCards.getZobristHash();
+        for (CardPile pile : gamePiles) {
+            hash ^= pile.getZobristHash();
+        }
+        for (CardPile pile : foundationPiles) {
+            hash ^= pile.getZobristHash();
+        }
+        return hash;
+    }
+
+    // Packed key that is the same for positions that differ only in the order of the tableau piles
+    // or of the foundations. With suitSymmetric, swapping hearts with diamonds or clubs with spades
+    // also gives the same key.
+    public byte[] getCanonicalKey(boolean suitSymmetric) {
+        byte[] best = encodeCanonical(0);
+        if (suitSymmetric) {
+            for (int swaps = 1; swaps < 4; swaps++) {
+                byte[] key = encodeCanonical(swaps);
+                if (compareKeys(key, best) < 0) {
+                    best = key;
+                }
+            }
+        }
+        return best;
+    }
+
+    // 64-bit hash of getCanonicalKey, for deduplicating deals and positions
+    public long getCanonicalHash(boolean suitSymmetric) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : getCanonicalKey(suitSymmetric)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // Encodes the position with bit 0 of swaps exchanging the red suits and bit 1 the black suits.
+    // Layout: deck, visible and discard piles, the foundation count of each suit, then the
+    // tableau piles in sorted order. Each pile is written as its size, face-down count and card ids.
+    private byte[] encodeCanonical(int swaps) {
+        int[] suitMap = { 0, 1, 2, 3 };
+        if ((swaps & 1) != 0) {
+            suitMap[Suit.HEARTS.ordinal()] = Suit.DIAMONDS.ordinal();
+            suitMap[Suit.DIAMONDS.ordinal()] = Suit.HEARTS.ordinal();
+        }
+        if ((swaps & 2) != 0) {
+            suitMap[Suit.CLUBS.ordinal()] = Suit.SPADES.ordinal();
+            suitMap[Suit.SPADES.ordinal()] = Suit.CLUBS.ordinal();
+        }
+
+        byte[][] columns = new byte[gamePiles.length][];
+        int length = 3 * 2 + deck.size() + visibleCards.size() + discardedCards.size() + 4;
+        for (int i = 0; i < gamePiles.length; i++) {
+            columns[i] = new byte[2 + gamePiles[i].size()];
+            writePile(gamePiles[i], suitMap, columns[i], 0);
+            length += columns[i].length;
+        }
+        Arrays.sort(columns, GameState::compareKeys);
+
+        byte[] key = new byte[length];
+        int offset = writePile(deck, suitMap, key, 0);
+        offset = writePile(visibleCards, suitMap, key, offset);
+        offset = writePile(discardedCards, suitMap, key, offset);
+        for (Suit suit : Suit.values()) {
+            key[offset + suitMap[suit.ordinal()]] = (byte) getFoundationCount(suit);
+        }
+        offset += 4;
+        for (byte[] column : columns) {
+            System.arraycopy(column, 0, key, offset, column.length);
+            offset += column.length;
+        }
+        return key;
+    }
+
+    private static int writePile(CardPile pile, int[] suitMap, byte[] out, int offset) {
+        out[offset++] = (byte) pile.size();
+        out[offset++] = (byte) pile.getFaceDownCount();
+        for (int i = 0; i < pile.size(); i++) {
+            int id = pile.getId(i);
+            out[offset++] = (byte) (suitMap[id / 13] * 13 + id % 13);
+        }
+        return offset;
+    }
+
+    private static int compareKeys(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return (a[i] & 0xFF) - (b[i] & 0xFF);
+            }
+        }
+        return a.length - b.length;
+    }
+
+    // change tracking
+
+    // Records that a pile was modified; listeners hear about it on the next fireChanges()
+    private void markChanged(int pileId) {
+        versions[pileId]++;
+        pendingChanges |= 1 << pileId;
+    }
+
+    // Holds back notifications until the matching endBatch, so listeners see a run of moves as one change
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void endBatch() {
+        if (--batchDepth == 0) {
+            fireChanges();
+        }
+    }
+
+    private void fireChanges() {
+        int changedPiles = pendingChanges;
+        if (changedPiles == 0 || batchDepth > 0) {
+            return;
+        }
+        pendingChanges = 0;
+        for (GameStateListener listener : listeners) {
+            listener.pilesChanged(this, changedPiles);
+        }
+    }
+
+    public void addListener(GameStateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Returns a counter that increases every time the pile with the given id changes
+    public long getVersion(int pileId) {
+        return versions[pileId];
+    }
+
+    public long getGamePileVersion(int index) {
+        return versions[index];
+    }
+
+    public long getFoundationVersion(int index) {
+        return versions[FIRST_FOUNDATION + index];
+    }
+
+    public long getDeckVersion() {
+        return versions[DECK_PILE];
+    }
+
+    public long getVisibleCardsVersion() {
+        return versions[VISIBLE_PILE];
+    }
+
+    public long getDiscardVersion() {
+        return versions[DISCARD_PILE];
     }
 
     
@@ -149,8 +898,9 @@ public class GameState {
             if (gamePiles[i].isEmpty()) {
                 System.out.println("Empty");
             } else {
-                for (Card card : gamePiles[i]) {
-                    System.out.print(card + " ");
+                CardPile pile = gamePiles[i];
+                for (int j = 0; j < pile.size(); j++) {
+                    System.out.print((pile.isFaceUp(j) ? pile.get(j).toString() : "Face Down") + " ");
                 }
                 System.out.println();
             }
@@ -158,19 +908,33 @@ public class GameState {
     }
 
     // getters
-    public Stack<Card> getGamePile(int index) {
+    public CardPile getGamePile(int index) {
         return gamePiles[index];
     }
 
-    public Stack<Card> getFoundationPile(int index) {
+    public CardPile getFoundationPile(int index) {
         return foundationPiles[index];
     }
 
-    public Stack<Card> getDeck() {
+    public CardPile getDeck() {
         return deck;
     }
 
-    public Stack<Card> getVisibleCards() {
+    public CardPile getVisibleCards() {
         return visibleCards;
     }
+
+    public CardPile getDiscardedCards() {
+        return discardedCards;
+    }
+
+    // Seed of the last deal, which deals this game again
+    public long getSeed() {
+        return seed;
+    }
+
+    // For a position restored with unpack, records the seed of the game it came from
+    void setSeed(long seed) {
+        this.seed = seed;
+    }
 }
@@ -0,0 +1,6 @@
+package solitaire;
+
+// Notified after a GameState move, with one bit set per changed pile id (see GameState.VISIBLE_PILE etc.)
+public interface GameStateListener {
+    void pilesChanged(GameState gameState, int changedPiles);
+}
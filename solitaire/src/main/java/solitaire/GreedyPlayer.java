@@ -0,0 +1,61 @@
+package solitaire;
+
+// Plays a game to the end without looking ahead, always taking the most promising legal move.
+// Tableau moves that only split a run are never made, so the player cannot shuffle cards back and forth.
+public class GreedyPlayer {
+    private final int[] moves = new int[Moves.MAX_MOVES]; // Reused so playing allocates nothing
+    private int maxMoves = 1000;
+    private int[] played = new int[maxMoves];
+
+    public void setMaxMoves(int maxMoves) {
+        this.maxMoves = maxMoves;
+        played = new int[maxMoves];
+    }
+
+    // The moves of the last game played; the first play(...) return value entries are valid
+    public int[] getPlayedMoves() {
+        return played;
+    }
+
+    // Plays until the game is won or no progress is possible. Returns the number of moves made.
+    public int play(GameState state) {
+        int moveCount = 0;
+        int drawsWithoutProgress = 0;
+        while (moveCount < maxMoves && !state.isWon()) {
+            int move = chooseMove(state);
+            if (move == -1) {
+                break;
+            }
+            if (Moves.type(move) == Moves.DRAW) {
+                // A full pass through the deck without another move means the game is stuck
+                int stockSize = state.getDeck().size() + state.getVisibleCards().size()
+                        + state.getDiscardedCards().size();
+                if (++drawsWithoutProgress > stockSize / 3 + 2) {
+                    break;
+                }
+            } else {
+                drawsWithoutProgress = 0;
+            }
+            state.makeMove(move);
+            played[moveCount++] = move;
+        }
+        return moveCount;
+    }
+
+    // Returns the first move in generateMoves order that is not a run split, or -1 if there is none
+    int chooseMove(GameState state) {
+        int count = state.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (Moves.type(move) != Moves.PILE_TO_PILE) {
+                return move;
+            }
+            CardPile pile = state.getGamePile(Moves.from(move));
+            boolean wholePileToEmpty = Moves.cardIndex(move) == 0 && state.getGamePile(Moves.to(move)).isEmpty();
+            if (Moves.cardIndex(move) == pile.getFaceDownCount() && !wholePileToEmpty) {
+                return move;
+            }
+        }
+        return -1;
+    }
+}
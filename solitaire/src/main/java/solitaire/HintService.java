@@ -0,0 +1,95 @@
+package solitaire;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.swing.SwingUtilities;
+
+// Looks for a hint on a background thread, so the Swing event thread never waits on the solver.
+// Each search runs on its own copy of the position: a first answer within FIRST_BUDGET_MILLIS, then
+// searches with growing time limits until a winning line is found or the game is proven lost.
+// Starting a new search cancels the one in flight, and anything a cancelled search finds is dropped.
+public class HintService {
+    // Receives hints on the event thread
+    public interface Listener {
+        // move is -1 when there is no legal move. SOLVED means the move starts a winning line,
+        // UNSOLVABLE that the game cannot be won, and LIMIT_REACHED that the move is only a best guess.
+        void hintFound(int move, SolverResult.Status status);
+    }
+
+    private static final long FIRST_BUDGET_MILLIS = 50;
+    private static final long MAX_BUDGET_MILLIS = 3200;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hint-search");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Only used on the search thread
+    private final Solver solver = new Solver();
+    private final GreedyPlayer player = new GreedyPlayer();
+
+    private final Listener listener;
+    private volatile int generation; // Bumped by every start and cancel, so stale results can be told apart
+    private Future<?> running;
+
+    public HintService(Listener listener) {
+        this.listener = listener;
+        solver.setNodeLimit(Long.MAX_VALUE); // Only the time budget bounds a hint search
+        solver.setMemoryLimitBytes(16L << 20);
+    }
+
+    // Cancels any search in flight and starts one on a snapshot of the given position.
+    // Call it from the thread that changes the game, normally the event thread.
+    public void start(GameState state) {
+        cancel();
+        GameState snapshot = new GameState(state);
+        int id = generation;
+        running = executor.submit(() -> search(snapshot, id));
+    }
+
+    public void cancel() {
+        generation++;
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void search(GameState snapshot, int id) {
+        int guess = player.chooseMove(snapshot);
+        for (long budget = FIRST_BUDGET_MILLIS; ; budget *= 4) {
+            solver.setTimeLimitMillis(budget);
+            SolverResult result = solver.solve(snapshot);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (result.isSolved()) {
+                int[] moves = result.getMoves();
+                publish(id, moves.length > 0 ? moves[0] : -1, SolverResult.Status.SOLVED);
+                return;
+            }
+            if (result.getStatus() == SolverResult.Status.UNSOLVABLE || budget >= MAX_BUDGET_MILLIS) {
+                publish(id, guess, result.getStatus());
+                return;
+            }
+            if (budget == FIRST_BUDGET_MILLIS) {
+                publish(id, guess, SolverResult.Status.LIMIT_REACHED); // Something to show while searching deeper
+            }
+        }
+    }
+
+    private void publish(int id, int move, SolverResult.Status status) {
+        SwingUtilities.invokeLater(() -> {
+            if (id == generation) {
+                listener.hintFound(move, status);
+            }
+        });
+    }
+}
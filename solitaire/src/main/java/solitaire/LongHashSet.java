@@ -0,0 +1,99 @@
+package solitaire;
+
+import java.util.Arrays;
+
+// Open-addressing set of 64-bit keys, used as a transposition table.
+// The table doubles as it fills, up to a memory limit. Zero marks an empty slot,
+// so a key of zero is stored as a different constant.
+public class LongHashSet {
+    private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+    private static final int INITIAL_SLOTS = 1 << 12;
+
+    private final int maxSlots;
+    private long[] table;
+    private int mask;
+    private int maxSize;
+    private int size;
+
+    // Creates a set that uses at most maxBytes of memory for its table
+    public LongHashSet(long maxBytes) {
+        maxSlots = (int) Long.highestOneBit(Math.max(16, Math.min(maxBytes / 8, 1L << 30)));
+        allocate(Math.min(INITIAL_SLOTS, maxSlots));
+    }
+
+    private void allocate(int slots) {
+        table = new long[slots];
+        mask = slots - 1;
+        maxSize = slots / 4 * 3; // Keep probe chains short
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size >= maxSize && table.length == maxSlots;
+    }
+
+    // Adds the key. Returns false if it was already present or the set is full.
+    public boolean add(long key) {
+        if (key == 0) {
+            key = ZERO_KEY;
+        }
+        int index = (int) (mix(key) & mask);
+        while (table[index] != 0) {
+            if (table[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size >= maxSize) {
+            if (table.length == maxSlots) {
+                return false;
+            }
+            grow();
+            return add(key);
+        }
+        table[index] = key;
+        size++;
+        return true;
+    }
+
+    private void grow() {
+        long[] old = table;
+        allocate(old.length * 2);
+        size = 0;
+        for (long key : old) {
+            if (key != 0) {
+                add(key);
+            }
+        }
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            key = ZERO_KEY;
+        }
+        int index = (int) (mix(key) & mask);
+        while (table[index] != 0) {
+            if (table[index] == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    // Spreads the key bits so nearby keys land in different slots
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,201 @@
+package solitaire;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+// Counters and latency histograms for the GUI and engine hot paths.
+// Off unless the JVM runs with -Dsolitaire.metrics=true. ENABLED is a constant, so when it is false the JIT
+// drops every timing call and instrumented code runs as if it had none.
+// When on, the metrics are published over JMX as solitaire:type=Metrics, and with
+// -Dsolitaire.metrics.dumpSeconds=N a snapshot is also printed every N seconds.
+//
+// Timing a block:
+//     long start = Metrics.start();
+//     ...
+//     SOME_TIMER.stop(start);
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("solitaire.metrics");
+
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    // Counts events
+    public static final class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            if (ENABLED) {
+                count.increment();
+            }
+        }
+
+        public void add(long amount) {
+            if (ENABLED) {
+                count.add(amount);
+            }
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    // Counts calls and keeps a histogram of their durations in power-of-two nanosecond buckets
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[64]; // Bucket b holds durations in [2^b, 2^(b+1))
+
+        Timer() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        // Records the time since a value returned by Metrics.start()
+        public void stop(long startNanos) {
+            if (ENABLED) {
+                record(System.nanoTime() - startNanos);
+            }
+        }
+
+        public void record(long nanos) {
+            if (ENABLED) {
+                count.increment();
+                totalNanos.add(nanos);
+                buckets[63 - Long.numberOfLeadingZeros(Math.max(nanos, 1))].increment();
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanNanos() {
+            long calls = count.sum();
+            return calls == 0 ? 0 : (double) totalNanos.sum() / calls;
+        }
+
+        // Upper bound of the bucket holding the given quantile (0-1), so within a factor of two
+        public long getPercentileNanos(double quantile) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return i >= 62 ? Long.MAX_VALUE : 1L << (i + 1);
+                }
+            }
+            return 0;
+        }
+    }
+
+    // Returns the timer with the given name, creating it on first use. Keep the result in a static field.
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    // Start time for Timer.stop, or 0 without a clock read when metrics are off
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    // Text table of every metric, sorted by name
+    public static String snapshot() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Timer> entry : new TreeMap<>(timers).entrySet()) {
+            Timer timer = entry.getValue();
+            text.append(String.format("%-36s %10d calls  mean %9.1f us  p50 <%9.1f us  p99 <%9.1f us%n",
+                    entry.getKey(), timer.getCount(), timer.getMeanNanos() / 1000,
+                    timer.getPercentileNanos(0.5) / 1000.0, timer.getPercentileNanos(0.99) / 1000.0));
+        }
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            text.append(String.format("%-36s %10d%n", entry.getKey(), entry.getValue().get()));
+        }
+        return text.toString();
+    }
+
+    // JMX view of the metrics
+    public interface MetricsMXBean {
+        Map<String, Long> getCounts();
+
+        Map<String, Long> getMeanNanos();
+
+        Map<String, Long> getP99Nanos();
+
+        String getSnapshot();
+    }
+
+    private static final class MetricsView implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCounts() {
+            Map<String, Long> values = new TreeMap<>();
+            timers.forEach((name, timer) -> values.put(name, timer.getCount()));
+            counters.forEach((name, counter) -> values.put(name, counter.get()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getMeanNanos() {
+            Map<String, Long> values = new TreeMap<>();
+            timers.forEach((name, timer) -> values.put(name, Math.round(timer.getMeanNanos())));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getP99Nanos() {
+            Map<String, Long> values = new TreeMap<>();
+            timers.forEach((name, timer) -> values.put(name, timer.getPercentileNanos(0.99)));
+            return values;
+        }
+
+        @Override
+        public String getSnapshot() {
+            return snapshot();
+        }
+    }
+
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsView(),
+                    new ObjectName("solitaire:type=Metrics"));
+        } catch (Exception e) {
+            System.err.println("Could not register metrics with JMX: " + e);
+        }
+        long dumpSeconds = Long.getLong("solitaire.metrics.dumpSeconds", 0);
+        if (dumpSeconds > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(() -> System.out.print(snapshot()), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+    }
+}
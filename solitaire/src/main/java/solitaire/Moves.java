@@ -0,0 +1,100 @@
+package solitaire;
+
+// Encodes a move as a single int so searches can store and replay moves without allocating.
+// Bits 0-3 hold the move type, bits 4-7 the source pile, bits 8-12 the card index and bits 13-16 the destination.
+// GameState.makeMove returns the move with extra bits above MOVE_MASK that record what undoMove needs.
+public final class Moves {
+    public static final int DRAW = 0; // Draw three cards, or turn the discard pile over when the deck is empty
+    public static final int VISIBLE_TO_PILE = 1;
+    public static final int VISIBLE_TO_FOUNDATION = 2;
+    public static final int PILE_TO_PILE = 3;
+    public static final int PILE_TO_FOUNDATION = 4;
+
+    // Upper bound on the number of legal moves in any position
+    public static final int MAX_MOVES = 256;
+
+    public static final int MOVE_MASK = (1 << 17) - 1;
+    // Undo record bits: a face-down card was turned over, or the discard pile was turned over into the deck
+    public static final int FLIPPED = 1 << 17;
+    public static final int RECYCLED = 1 << 18;
+    // Undo record fields: cards in the moved run or cards drawn (4 bits), and visible cards discarded by a draw (6 bits)
+    private static final int COUNT_SHIFT = 19;
+    private static final int DISCARDED_SHIFT = 23;
+
+    private Moves() {
+    }
+
+    private static int encode(int type, int from, int cardIndex, int to) {
+        return type | (from << 4) | (cardIndex << 8) | (to << 13);
+    }
+
+    public static int draw() {
+        return DRAW;
+    }
+
+    public static int visibleToPile(int toPileIndex) {
+        return encode(VISIBLE_TO_PILE, 0, 0, toPileIndex);
+    }
+
+    public static int visibleToFoundation(int foundationIndex) {
+        return encode(VISIBLE_TO_FOUNDATION, 0, 0, foundationIndex);
+    }
+
+    public static int pileToPile(int fromPileIndex, int cardIndex, int toPileIndex) {
+        return encode(PILE_TO_PILE, fromPileIndex, cardIndex, toPileIndex);
+    }
+
+    public static int pileToFoundation(int fromPileIndex, int foundationIndex) {
+        return encode(PILE_TO_FOUNDATION, fromPileIndex, 0, foundationIndex);
+    }
+
+    public static int type(int move) {
+        return move & 0xF;
+    }
+
+    public static int from(int move) {
+        return (move >>> 4) & 0xF;
+    }
+
+    public static int cardIndex(int move) {
+        return (move >>> 8) & 0x1F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 13) & 0xF;
+    }
+
+    // Strips the undo bits from a record returned by GameState.makeMove
+    public static int move(int record) {
+        return record & MOVE_MASK;
+    }
+
+    static int withCounts(int move, int count, int discarded) {
+        return move | (count << COUNT_SHIFT) | (discarded << DISCARDED_SHIFT);
+    }
+
+    static int count(int record) {
+        return (record >>> COUNT_SHIFT) & 0xF;
+    }
+
+    static int discarded(int record) {
+        return (record >>> DISCARDED_SHIFT) & 0x3F;
+    }
+
+    public static String toString(int move) {
+        switch (type(move)) {
+            case DRAW:
+                return "draw";
+            case VISIBLE_TO_PILE:
+                return "visible -> pile " + (to(move) + 1);
+            case VISIBLE_TO_FOUNDATION:
+                return "visible -> foundation " + (to(move) + 1);
+            case PILE_TO_PILE:
+                return "pile " + (from(move) + 1) + " card " + cardIndex(move) + " -> pile " + (to(move) + 1);
+            case PILE_TO_FOUNDATION:
+                return "pile " + (from(move) + 1) + " -> foundation " + (to(move) + 1);
+            default:
+                return "unknown move " + move;
+        }
+    }
+}
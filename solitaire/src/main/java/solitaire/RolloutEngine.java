@@ -0,0 +1,155 @@
+package solitaire;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Estimates how likely each legal move is to win when the face-down cards are unknown.
+// Every rollout deals the hidden cards (face-down tableau cards and the deck) into a random order, plays
+// the move and lets GreedyPlayer finish the game. Rollout r of every move uses the same hidden layout,
+// so moves are compared on equal deals. Rollouts run in rounds on a thread pool; after each round a move
+// whose confidence interval lies wholly below the leader's is dropped, and the run stops when one is left.
+// The deck is treated as unknown even after a pass through it, which keeps the model simple.
+public class RolloutEngine {
+    private static final int CHUNK_SIZE = 32; // Rollouts per task
+
+    private final ExecutorService pool;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    private int maxRolloutsPerMove = 4000;
+    private int roundSize = 256;
+    private long timeLimitMillis = 10000;
+    private long seed;
+
+    // Scratch state a pool thread reuses for every rollout, so the rollout loop allocates nothing
+    private static class Worker {
+        final GameState scratch = new GameState(0);
+        final GreedyPlayer player = new GreedyPlayer();
+        final byte[] hidden = new byte[Deals.DECK_SIZE];
+
+        // Plays count rollouts of one move and returns how many were won
+        int play(GameState root, int move, long firstSeed, int count) {
+            int wins = 0;
+            for (int i = 0; i < count; i++) {
+                scratch.copyFrom(root);
+                scratch.shuffleHiddenCards(firstSeed + i, hidden);
+                scratch.makeMove(move);
+                player.play(scratch);
+                if (scratch.isWon()) {
+                    wins++;
+                }
+            }
+            return wins;
+        }
+    }
+
+    public RolloutEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public RolloutEngine(int threads) {
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "rollout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setMaxRolloutsPerMove(int maxRolloutsPerMove) {
+        this.maxRolloutsPerMove = maxRolloutsPerMove;
+    }
+
+    // Rollouts per move between two checks of the confidence intervals
+    public void setRoundSize(int roundSize) {
+        this.roundSize = roundSize;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    // Seed of the first hidden-card layout; the same seed gives the same estimates
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Estimates the win probability of every legal move from the position, which is left unchanged
+    public RolloutResult evaluate(GameState position) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        long deadline = start + timeLimitMillis * 1000000L;
+        GameState root = new GameState(position); // Only read by the workers
+
+        int[] buffer = new int[Moves.MAX_MOVES];
+        int[] moves = Arrays.copyOf(buffer, root.generateMoves(buffer));
+        int[] wins = new int[moves.length];
+        int[] rollouts = new int[moves.length];
+        boolean[] active = new boolean[moves.length];
+        Arrays.fill(active, true);
+        int activeCount = moves.length;
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        List<int[]> taskInfo = new ArrayList<>(); // {move index, rollouts} of each task
+        int done = 0;
+        while (activeCount > 0 && (done == 0 || activeCount > 1) && done < maxRolloutsPerMove
+                && System.nanoTime() < deadline) {
+            int round = Math.min(roundSize, maxRolloutsPerMove - done);
+            tasks.clear();
+            taskInfo.clear();
+            for (int i = 0; i < moves.length; i++) {
+                if (!active[i]) {
+                    continue;
+                }
+                for (int from = 0; from < round; from += CHUNK_SIZE) {
+                    int move = moves[i];
+                    int count = Math.min(CHUNK_SIZE, round - from);
+                    long firstSeed = seed + done + from;
+                    tasks.add(() -> workers.get().play(root, move, firstSeed, count));
+                    taskInfo.add(new int[] {i, count});
+                }
+            }
+            List<Future<Integer>> results = pool.invokeAll(tasks);
+            for (int t = 0; t < results.size(); t++) {
+                int[] info = taskInfo.get(t);
+                wins[info[0]] += results.get(t).get();
+                rollouts[info[0]] += info[1];
+            }
+            done += round;
+            activeCount = dropLosingMoves(wins, rollouts, active);
+        }
+        return new RolloutResult(moves, wins, rollouts, System.nanoTime() - start);
+    }
+
+    // Deactivates every move whose interval is entirely below the leader's and returns how many remain
+    private static int dropLosingMoves(int[] wins, int[] rollouts, boolean[] active) {
+        int best = -1;
+        for (int i = 0; i < active.length; i++) {
+            if (active[i] && (best == -1 || (long) wins[i] * rollouts[best] > (long) wins[best] * rollouts[i])) {
+                best = i;
+            }
+        }
+        if (best == -1) {
+            return 0;
+        }
+        double bestLower = (double) wins[best] / rollouts[best] - RolloutResult.halfWidth(wins[best], rollouts[best]);
+        int remaining = 0;
+        for (int i = 0; i < active.length; i++) {
+            if (active[i] && i != best
+                    && (double) wins[i] / rollouts[i] + RolloutResult.halfWidth(wins[i], rollouts[i]) < bestLower) {
+                active[i] = false;
+            }
+            if (active[i]) {
+                remaining++;
+            }
+        }
+        return remaining;
+    }
+}
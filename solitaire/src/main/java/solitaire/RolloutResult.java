@@ -0,0 +1,84 @@
+package solitaire;
+
+// Outcome of a RolloutEngine run: the estimated win probability of every legal move and run statistics
+public class RolloutResult {
+    private final int[] moves;
+    private final int[] wins;
+    private final int[] rollouts;
+    private final long elapsedNanos;
+
+    public RolloutResult(int[] moves, int[] wins, int[] rollouts, long elapsedNanos) {
+        this.moves = moves;
+        this.wins = wins;
+        this.rollouts = rollouts;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    // Move i, encoded with Moves, in the order GameState.generateMoves lists them
+    public int getMove(int i) {
+        return moves[i];
+    }
+
+    public int getRollouts(int i) {
+        return rollouts[i];
+    }
+
+    public double getWinProbability(int i) {
+        return rollouts[i] == 0 ? 0 : (double) wins[i] / rollouts[i];
+    }
+
+    // Half width of a 95% confidence interval for the win probability of move i (Agresti-Coull),
+    // which stays sensible when no rollout or every rollout was won
+    public double getConfidenceHalfWidth(int i) {
+        return halfWidth(wins[i], rollouts[i]);
+    }
+
+    static double halfWidth(int wins, int rollouts) {
+        double n = rollouts + 4;
+        double p = (wins + 2) / n;
+        return 1.96 * Math.sqrt(p * (1 - p) / n);
+    }
+
+    // Index of the move with the highest estimated win probability, or -1 if there are no moves
+    public int getBestIndex() {
+        int best = -1;
+        for (int i = 0; i < moves.length; i++) {
+            if (best == -1 || getWinProbability(i) > getWinProbability(best)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public long getTotalRollouts() {
+        long total = 0;
+        for (int count : rollouts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRolloutsPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTotalRollouts() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(getTotalRollouts()).append(" rollouts in ").append(elapsedNanos / 1000000).append(" ms (")
+                .append(Math.round(getRolloutsPerSecond())).append(" rollouts/sec)");
+        for (int i = 0; i < moves.length; i++) {
+            text.append(String.format("%n  %-32s %5.1f%% +/- %.1f%% (%d)", Moves.toString(moves[i]),
+                    getWinProbability(i) * 100, getConfidenceHalfWidth(i) * 100, rollouts[i]));
+        }
+        return text.toString();
+    }
+}
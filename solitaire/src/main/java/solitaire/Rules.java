@@ -0,0 +1,74 @@
+package solitaire;
+
+// Card-pair rules as bit tables indexed by card id (Card.getId), built once from the Suit and Rank enums.
+// 52 cards fit in a long, so each check is one array load and one bit test.
+public final class Rules {
+    // STACKS_ON[id] has bit b set when card id can be placed on card b in the tableau:
+    // the opposite colour and one rank lower
+    private static final long[] STACKS_ON = new long[Deals.DECK_SIZE];
+    // FOLLOWS[id] has bit b set when card id can go on card b on a foundation:
+    // the same suit and one rank higher
+    private static final long[] FOLLOWS = new long[Deals.DECK_SIZE];
+    private static final long KINGS; // Cards that can go on an empty tableau pile
+    private static final long ACES; // Cards that can go on an empty foundation
+
+    static {
+        long kings = 0;
+        long aces = 0;
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                int id = Card.of(suit, rank).getId();
+                for (Suit otherSuit : Suit.values()) {
+                    for (Rank otherRank : Rank.values()) {
+                        int otherId = Card.of(otherSuit, otherRank).getId();
+                        if (suit.getColor() != otherSuit.getColor() && rank.ordinal() + 1 == otherRank.ordinal()) {
+                            STACKS_ON[id] |= 1L << otherId;
+                        }
+                        if (suit == otherSuit && rank.ordinal() == otherRank.ordinal() + 1) {
+                            FOLLOWS[id] |= 1L << otherId;
+                        }
+                    }
+                }
+                if (rank == Rank.KING) {
+                    kings |= 1L << id;
+                }
+                if (rank == Rank.ACE) {
+                    aces |= 1L << id;
+                }
+            }
+        }
+        KINGS = kings;
+        ACES = aces;
+    }
+
+    private Rules() {
+    }
+
+    // True if card id can be placed on card onId in the tableau
+    public static boolean canStack(int id, int onId) {
+        return (STACKS_ON[id] & (1L << onId)) != 0;
+    }
+
+    // True if card id can be played on card onId on a foundation
+    public static boolean canFollow(int id, int onId) {
+        return (FOLLOWS[id] & (1L << onId)) != 0;
+    }
+
+    // Bits of the cards that card id can be placed on in the tableau
+    static long stackTargets(int id) {
+        return STACKS_ON[id];
+    }
+
+    // Bit of the card that card id follows on a foundation, or 0 for an ace
+    static long foundationPredecessor(int id) {
+        return FOLLOWS[id];
+    }
+
+    public static boolean isKing(int id) {
+        return (KINGS & (1L << id)) != 0;
+    }
+
+    public static boolean isAce(int id) {
+        return (ACES & (1L << id)) != 0;
+    }
+}
@@ -3,33 +3,106 @@ package solitaire;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Stack;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 public class SolitaireGUI {
+    // Time spent handling each kind of event on the event thread, and in refreshing components
+    private static final Metrics.Timer PILE_CLICK_TIMER = Metrics.timer("gui.pileClick");
+    private static final Metrics.Timer FOUNDATION_CLICK_TIMER = Metrics.timer("gui.foundationClick");
+    private static final Metrics.Timer DECK_CLICK_TIMER = Metrics.timer("gui.deckClick");
+    private static final Metrics.Timer VISIBLE_CLICK_TIMER = Metrics.timer("gui.visibleCardsClick");
+    private static final Metrics.Timer BUTTON_TIMER = Metrics.timer("gui.buttonClick");
+    private static final Metrics.Timer UPDATE_PILE_TIMER = Metrics.timer("gui.updatePileComponent");
+    private static final Metrics.Timer UPDATE_TIMER = Metrics.timer("gui.updateChangedComponents");
+    private static final Metrics.Timer DRAG_TIMER = Metrics.timer("gui.drag");
+    private static final Metrics.Timer DROP_TIMER = Metrics.timer("gui.drop");
+    private static final Metrics.Timer SEEK_TIMER = Metrics.timer("gui.seek");
+
+    // Pixels the mouse must move with the button down before cards are picked up, so clicks still select
+    private static final int DRAG_THRESHOLD = 5;
+    // Moves between replay snapshots; a seek plays at most this many moves
+    private static final int REPLAY_INTERVAL = 16;
+
     private JFrame frame;
     private JPanel topPanel;
-    private JPanel playArea;
+    private TableauPanel playArea;
+    private JButton undoButton;
+    private JButton redoButton;
+    private JLabel statusLabel;
+    private HintService hintService;
+    private final AutoPlayer autoPlayer = new AutoPlayer();
+    // Game record log named by -Dsolitaire.record, or null to keep no record
+    private final String recordPath = System.getProperty("solitaire.record");
+    // Winnable deals for New Game, kept in the file named by -Dsolitaire.dealPool; saved when the window closes
+    private DealPool dealPool;
+    // Game record log named by -Dsolitaire.replay, whose game -Dsolitaire.replayGame (the last by default)
+    // can be scrubbed through with a slider, or null for no replay
+    private final String replayPath = System.getProperty("solitaire.replay");
+    private GameReplay replay;
+    private boolean showingHints; // Set by the Hint button; hints then follow every move
     private GameState gameState;
 
     // Variable to keep track of the selected pile index
     private int selectedPileIndex = -1;
     private int selectedCardIndex = -1;
 
+    // Drag and drop. Positions are in drag layer coordinates.
+    private DragLayer dragLayer;
+    private int pressPileIndex = -1; // Cards under the mouse button, which a drag would pick up
+    private int pressCardIndex = -1;
+    private int pressX;
+    private int pressY;
+    private int dragPileIndex = -1; // Pile the dragged cards came from (7 for the visible cards), or -1
+    private int dragCardIndex = -1;
+    private int dragOriginX; // Where the first dragged card was, and where it slides back to
+    private int dragOriginY;
+
     public SolitaireGUI(GameState gameState) {
         this.gameState = gameState;
+        // Decode the card images in the background while the frame is built; cards show placeholders until then
+        CompletableFuture<Void> images = CardImages.load();
 
         // Create the main frame
         frame = new JFrame("Solitaire");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(1000, 800);
         frame.setLayout(new BorderLayout());
+        dragLayer = new DragLayer();
+        frame.setGlassPane(dragLayer);
+        dragLayer.setVisible(true);
 
         // Initialize and add panels
         setupTopPanel();
         setupPlayArea();
+        setupButtonPanel();
+
+        // Refresh only the components whose piles a move changed
+        gameState.addListener((state, changedPiles) -> updateChangedComponents(changedPiles));
+        hintService = new HintService(this::showHint);
+        dealPool = new DealPool(Paths.get(System.getProperty("solitaire.dealPool",
+                System.getProperty("user.home") + "/.solitaire-deals")));
+        if (replay != null) {
+            seekReplay(0);
+        }
+
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (recordPath != null) {
+                    recordGame();
+                }
+                // Stop the background threads; the deal pool also saves which seeds were used
+                hintService.shutdown();
+                autoPlayer.shutdown();
+                dealPool.shutdown();
+            }
+        });
 
         // Make the frame visible
         frame.setVisible(true);
+        images.thenRun(() -> SwingUtilities.invokeLater(frame::repaint));
     }
 
     private void setupTopPanel() {
@@ -62,102 +135,227 @@ public class SolitaireGUI {
         frame.add(topPanel, BorderLayout.NORTH);
     }
 
-    private void setupPlayArea() {
-        // Create the center panel for the main play area
-        playArea = new JPanel();
-        playArea.setLayout(new GridLayout(1, 7, 5, 5)); // One row, seven columns with spacing
+    // Bottom row of game controls
+    private void setupButtonPanel() {
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.setBackground(Color.LIGHT_GRAY);
 
-        // Add seven piles to the play area
-        for (int i = 0; i < 7; i++) {
-            int pileIndex = i;
-            JPanel pilePanel = createPileComponent(pileIndex);
-            playArea.add(pilePanel);
+        JButton newGameButton = new JButton("New Game");
+        newGameButton.addActionListener(e -> timeButton(this::handleNewGameClick));
+        buttonPanel.add(newGameButton);
+
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> timeButton(this::handleResetClick));
+        buttonPanel.add(resetButton);
+
+        undoButton = new JButton("Undo");
+        undoButton.addActionListener(e -> timeButton(this::handleUndoClick));
+        buttonPanel.add(undoButton);
+
+        redoButton = new JButton("Redo");
+        redoButton.addActionListener(e -> timeButton(this::handleRedoClick));
+        buttonPanel.add(redoButton);
+
+        JButton autoButton = new JButton("Auto");
+        autoButton.addActionListener(e -> timeButton(this::handleAutoClick));
+        buttonPanel.add(autoButton);
+
+        JButton hintButton = new JButton("Hint");
+        hintButton.addActionListener(e -> timeButton(this::handleHintClick));
+        buttonPanel.add(hintButton);
+
+        statusLabel = new JLabel(" ");
+        buttonPanel.add(statusLabel);
+
+        if (replayPath != null) {
+            setupReplaySlider(buttonPanel);
         }
 
-        // Add the play area to the CENTER of the frame
-        frame.add(playArea, BorderLayout.CENTER);
+        updateButtons();
+        frame.add(buttonPanel, BorderLayout.SOUTH);
     }
 
-    // Method to create a card component (as a JLabel)
-    private JLabel createCardComponent(Card card) {
-        ImageIcon icon = getCardIcon(card);
-        JLabel cardLabel = new JLabel(icon);
-        cardLabel.setPreferredSize(new Dimension(73, 97));
-        return cardLabel;
+    // Loads the recorded game and adds a slider over its moves, from the deal to the last move
+    private void setupReplaySlider(JPanel buttonPanel) {
+        try (GameRecordReader reader = new GameRecordReader(Paths.get(replayPath))) {
+            int game = Integer.getInteger("solitaire.replayGame", reader.size() - 1);
+            replay = GameReplay.of(reader, game, REPLAY_INTERVAL);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            System.err.println("Could not load the replay from " + replayPath + ": " + e);
+            return;
+        }
+        JSlider slider = new JSlider(0, replay.getMoveCount(), 0);
+        slider.addChangeListener(e -> seekReplay(slider.getValue()));
+        buttonPanel.add(slider);
+    }
+
+    // Shows the recorded game after moveIndex moves. Each seek restores a snapshot and plays a few moves,
+    // so dragging the slider keeps up even on long games.
+    private void seekReplay(int moveIndex) {
+        long start = Metrics.start();
+        stopInteraction();
+        replay.seek(moveIndex, gameState);
+        statusLabel.setText("Move " + moveIndex + " of " + replay.getMoveCount());
+        SEEK_TIMER.stop(start);
+    }
+
+    private static void timeButton(Runnable handler) {
+        long start = Metrics.start();
+        handler.run();
+        BUTTON_TIMER.stop(start);
+    }
+
+    private void updateButtons() {
+        undoButton.setEnabled(gameState.canUndo());
+        redoButton.setEnabled(gameState.canRedo());
+    }
+
+    // Deals a winnable game from the pool, which is refilled in the background
+    private void handleNewGameClick() {
+        startGame(dealPool.nextSeed());
+    }
+
+    // Deals the current game again from the start
+    private void handleResetClick() {
+        startGame(gameState.getSeed());
+    }
+
+    // Deals into the existing GameState, so the listener refreshes the components already on screen
+    private void startGame(long seed) {
+        if (recordPath != null && gameState.canUndo()) {
+            recordGame();
+        }
+        stopInteraction();
+        statusLabel.setText(" ");
+        gameState.deal(seed);
+    }
+
+    // Drops any drag, selection, hint search and autoplay search, before the whole position is replaced
+    private void stopInteraction() {
+        if (dragLayer.isActive()) {
+            dragLayer.clear();
+            endDrag();
+        }
+        hintService.cancel();
+        autoPlayer.cancel();
+        showingHints = false;
+        clearSelection();
+    }
+
+    private void handleUndoClick() {
+        clearSelection();
+        gameState.undo();
     }
 
-    // Method to create a pile component (as a JPanel)
-    private JPanel createPileComponent(int pileIndex) {
-        JPanel pilePanel = new JPanel();
-        pilePanel.setLayout(null); // Absolute positioning for overlapping cards
-        pilePanel.setBackground(new Color(0, 128, 0)); // Green background
-        pilePanel.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+    private void handleRedoClick() {
+        clearSelection();
+        gameState.redo();
+    }
+
+    // Plays every safe foundation move from the tableau, or the rest of the game once all cards are face up.
+    // The GameState batches the moves, so the components are refreshed once. The search for the
+    // rest of the game runs in the background and its moves arrive later on the event thread,
+    // unless cards are being dragged by then.
+    private void handleAutoClick() {
+        clearSelection();
+        autoPlayer.start(gameState, () -> !dragLayer.isActive());
+    }
 
-        pilePanel.setPreferredSize(new Dimension(100, 600));
-        updatePileComponent(pilePanel, pileIndex);
+    // Searches in the background; the answer arrives in showHint
+    private void handleHintClick() {
+        showingHints = true;
+        statusLabel.setText("Thinking...");
+        hintService.start(gameState);
+    }
+
+    private void showHint(int move, SolverResult.Status status) {
+        if (move == -1) {
+            statusLabel.setText(status == SolverResult.Status.SOLVED ? "You won!" : "No moves left");
+        } else if (status == SolverResult.Status.SOLVED) {
+            statusLabel.setText("Hint: " + Moves.toString(move) + " (wins)");
+        } else if (status == SolverResult.Status.UNSOLVABLE) {
+            statusLabel.setText("Hint: " + Moves.toString(move) + " (this game can't be won)");
+        } else {
+            statusLabel.setText("Hint: " + Moves.toString(move));
+        }
+    }
 
-        pilePanel.addMouseListener(new MouseAdapter() {
+    // Appends the seed and the moves played so far to the game record log
+    private void recordGame() {
+        try (GameRecordWriter writer = new GameRecordWriter(Paths.get(recordPath))) {
+            writer.write(gameState);
+        } catch (IOException e) {
+            System.err.println("Could not record the game: " + e.getMessage());
+        }
+    }
+
+    // Drops the current selection, since the selected card may be moved by undo or redo
+    private void clearSelection() {
+        if (selectedPileIndex == 7) {
+            updateVisibleCardsComponentSelection(false);
+        } else if (selectedPileIndex != -1) {
+            updatePileComponentSelection(selectedPileIndex, selectedCardIndex, false);
+        }
+        selectedPileIndex = -1;
+        selectedCardIndex = -1;
+    }
+
+    private void setupPlayArea() {
+        // Create the center panel for the main play area, which paints all seven piles itself
+        playArea = new TableauPanel(gameState);
+
+        playArea.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                handlePileClick(pileIndex, e);
+                long start = Metrics.start();
+                int pileIndex = playArea.pileAt(e.getX());
+                if (pileIndex != -1) {
+                    handlePileClick(pileIndex, e);
+                }
+                PILE_CLICK_TIMER.stop(start);
             }
         });
+        DragHandler dragHandler = new DragHandler(playArea);
+        playArea.addMouseListener(dragHandler);
+        playArea.addMouseMotionListener(dragHandler);
+
+        // Add the play area to the CENTER of the frame
+        frame.add(playArea, BorderLayout.CENTER);
+    }
 
-        return pilePanel;
+    // Method to create a card component (as a JLabel)
+    private JLabel createCardComponent(Card card) {
+        Icon icon = CardImages.getIcon(card, true);
+        JLabel cardLabel = new JLabel(icon);
+        cardLabel.setPreferredSize(new Dimension(73, 97));
+        return cardLabel;
     }
 
     // Method to update a pile component with the current cards
-    private void updatePileComponent(JPanel pilePanel, int pileIndex) {
-        pilePanel.removeAll();
-        Stack<Card> pile = gameState.getGamePile(pileIndex);
-    
-        int yOffset = 20; // Vertical offset between cards
-        int y = 0;
-    
-        for (int i = 0; i < pile.size(); i++) {
-            Card card = pile.get(i);
-            JLabel cardLabel = createCardComponent(card);
-            cardLabel.setBounds(0, y, 73, 97); // Position within the pile panel
-            pilePanel.add(cardLabel, 0); // Add at index 0 to adjust stacking order
-            y += yOffset;
-        }
-    
-       
-        pilePanel.revalidate();
-        pilePanel.repaint();
+    private void updatePileComponent(int pileIndex) {
+        long start = Metrics.start();
+        playArea.repaintPile(pileIndex);
+        UPDATE_PILE_TIMER.stop(start);
     }
 
     // Method to handle pile clicks
     private void handlePileClick(int pileIndex, MouseEvent e) {
-        JPanel pilePanel = (JPanel) playArea.getComponent(pileIndex);
         if (selectedPileIndex == 7) {
             // Moving from visible cards to pile
             boolean success = gameState.moveCardFromVisibleCardsToPile(pileIndex);
             if (success) {
-                updateVisibleCardsComponent();
-                updatePileComponent(pilePanel, pileIndex);
                 selectedPileIndex = -1;
                 selectedCardIndex = -1;
             }
             updateVisibleCardsComponentSelection(false);
             return;
         } 
-        int clickY = e.getY();
-    
-        Stack<Card> pile = gameState.getGamePile(pileIndex);
-        int yOffset = 20;
-        int cardIndex = clickY / yOffset; // Estimate the card index based on click position
-    
-       
-        if (cardIndex >= pile.size()) {
-            cardIndex = pile.size() - 1;
-        }
-        
-        
+        CardPile pile = gameState.getGamePile(pileIndex);
+        int cardIndex = playArea.cardIndexAt(pileIndex, e.getY()); // Estimate the card index based on click position
     
         if (selectedPileIndex == -1) {
             // Check if the selected card is face up
-            if (pile.size() == 0 || !pile.get(cardIndex).isFaceUp()) {
+            if (pile.size() == 0 || !pile.isFaceUp(cardIndex)) {
                 return; // Do nothing if the card is face down
             }
             // No pile selected; select this one
@@ -171,14 +369,7 @@ public class SolitaireGUI {
             selectedCardIndex = -1;
         } else {
             // Attempt to move the sequence of cards
-            boolean success = gameState.moveCards(selectedPileIndex, selectedCardIndex, pileIndex);
-            if (success) {
-                // Update the source and destination piles
-                JPanel fromPilePanel = (JPanel) playArea.getComponent(selectedPileIndex);
-                JPanel toPilePanel = (JPanel) playArea.getComponent(pileIndex);
-                updatePileComponent(fromPilePanel, selectedPileIndex);
-                updatePileComponent(toPilePanel, pileIndex);
-            }
+            gameState.moveCards(selectedPileIndex, selectedCardIndex, pileIndex);
             // Deselect after attempting to move
             updatePileComponentSelection(selectedPileIndex, selectedCardIndex, false);
             selectedPileIndex = -1;
@@ -188,25 +379,10 @@ public class SolitaireGUI {
     
     // Method to update pile selection visuals
     private void updatePileComponentSelection(int pileIndex, int cardIndex, boolean isSelected) {
-        JPanel pilePanel = (JPanel) playArea.getComponent(pileIndex);
-        Component[] components = pilePanel.getComponents();
-    
-        if (cardIndex >= 0 && cardIndex < components.length) {
-            JLabel cardLabel = (JLabel) components[components.length - 1 - cardIndex];
-            if (isSelected) {
-                // Enlarge the card by 15%
-                int newWidth = (int) (73 * 1.15);
-                int newHeight = (int) (97 * 1.15);
-                ImageIcon icon = (ImageIcon) cardLabel.getIcon();
-                Image scaledImage = icon.getImage().getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
-                cardLabel.setIcon(new ImageIcon(scaledImage));
-                cardLabel.setBounds(cardLabel.getX(), cardLabel.getY(), newWidth, newHeight);
-            } else {
-                // Reset to original size
-                ImageIcon icon = getCardIcon(gameState.getGamePile(pileIndex).get(cardIndex));
-                cardLabel.setIcon(icon);
-                cardLabel.setBounds(cardLabel.getX(), cardLabel.getY(), 73, 97);
-            }
+        if (isSelected) {
+            playArea.setSelection(pileIndex, cardIndex);
+        } else {
+            playArea.clearSelection();
         }
     }
     
@@ -222,7 +398,9 @@ public class SolitaireGUI {
         foundationLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                long start = Metrics.start();
                 handleFoundationClick(foundationIndex);
+                FOUNDATION_CLICK_TIMER.stop(start);
             }
         });
 
@@ -231,10 +409,10 @@ public class SolitaireGUI {
 
     // Method to update foundation components
     private void updateFoundationComponent(JLabel foundationLabel, int foundationIndex) {
-        Stack<Card> foundationPile = gameState.getFoundationPile(foundationIndex);
+        CardPile foundationPile = gameState.getFoundationPile(foundationIndex);
         if (!foundationPile.isEmpty()) {
             Card topCard = foundationPile.peek();
-            ImageIcon icon = getCardIcon(topCard);
+            Icon icon = CardImages.getIcon(topCard, true);
             foundationLabel.setIcon(icon);
         } else {
             foundationLabel.setIcon(null);
@@ -245,53 +423,17 @@ public class SolitaireGUI {
     private void handleFoundationClick(int foundationIndex) {
         if (selectedPileIndex != -1) {
             // Try to move card from selected pile to foundation
-            boolean success = false;
             if (selectedPileIndex == 7) {
                 // Moving from visible cards to foundation
-                success = gameState.moveToFoundationFromVisibleCards(foundationIndex);
-                if (success) {
-                    updateVisibleCardsComponent();
-                    JLabel foundationLabel = (JLabel) ((JPanel) topPanel.getComponent(2)).getComponent(foundationIndex);
-                    updateFoundationComponent(foundationLabel, foundationIndex);
-                }
+                gameState.moveToFoundationFromVisibleCards(foundationIndex);
                 updateVisibleCardsComponentSelection(false);
             } else {
-                success = gameState.moveToFoundation(selectedPileIndex, foundationIndex);
-                if (success) {
-                    JPanel pilePanel = (JPanel) playArea.getComponent(selectedPileIndex);
-                    updatePileComponent(pilePanel, selectedPileIndex);
-                    JLabel foundationLabel = (JLabel) ((JPanel) topPanel.getComponent(2)).getComponent(foundationIndex);
-                    updateFoundationComponent(foundationLabel, foundationIndex);
-                }
+                gameState.moveToFoundation(selectedPileIndex, foundationIndex);
                 updatePileComponentSelection(selectedPileIndex, selectedCardIndex, false);
             }
             selectedPileIndex = -1;
-            // Update pile selections
-            for (int i = 0; i < 7; i++) {
-                JPanel pilePanel = (JPanel) playArea.getComponent(i);
-                updatePileComponent(pilePanel, i);
-            }
-        }
-    }
-
-    // Helper method to get scaled card icon
-    private ImageIcon getCardIcon(Card card) {
-        String imageName;
-        if (card.isFaceUp()) {
-            imageName = card.getRank().getRankString().toLowerCase() + "_of_" + card.getSuit().toString().toLowerCase() + ".png";
-        } else {
-            imageName = "card_back.png";
-        }
-        System.out.println("Attempting to load image: " + imageName);
-        ImageIcon icon = new ImageIcon("./solitaire/src/main/cardImages/" + imageName);
-        if (icon.getIconWidth() == -1) {
-            System.out.println("Failed to load image: " + imageName);
-        } else {
-            System.out.println("Image loaded successfully: " + imageName);
+            selectedCardIndex = -1;
         }
-        System.out.println("Current Working Directory: " + System.getProperty("user.dir"));
-        Image scaledImage = icon.getImage().getScaledInstance(73, 97, Image.SCALE_SMOOTH);
-        return new ImageIcon(scaledImage);
     }
 
     // Method to create the deck component
@@ -305,7 +447,9 @@ public class SolitaireGUI {
         deckLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                long start = Metrics.start();
                 handleDeckClick();
+                DECK_CLICK_TIMER.stop(start);
             }
         });
 
@@ -315,9 +459,7 @@ public class SolitaireGUI {
     // Method to update the deck component
     private void updateDeckComponent(JLabel deckLabel) {
         if (!gameState.getDeck().isEmpty()) {
-            ImageIcon icon = new ImageIcon("./solitaire/src/main/cardImages/card_back.png");
-            Image scaledImage = icon.getImage().getScaledInstance(73, 97, Image.SCALE_SMOOTH);
-            deckLabel.setIcon(new ImageIcon(scaledImage));
+            deckLabel.setIcon(CardImages.getBack());
         } else {
             deckLabel.setIcon(null);
         }
@@ -326,7 +468,6 @@ public class SolitaireGUI {
     // Method to handle deck clicks
     private void handleDeckClick() {
         gameState.drawFromDeck();
-        updateDeckAndVisibleCardsComponents();
     }
 
     // Method to create the visible cards component
@@ -341,9 +482,14 @@ public class SolitaireGUI {
         visibleCardsPanel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                long start = Metrics.start();
                 handleVisibleCardsClick();
+                VISIBLE_CLICK_TIMER.stop(start);
             }
         });
+        DragHandler dragHandler = new DragHandler(visibleCardsPanel);
+        visibleCardsPanel.addMouseListener(dragHandler);
+        visibleCardsPanel.addMouseMotionListener(dragHandler);
 
         return visibleCardsPanel;
     }
@@ -351,7 +497,7 @@ public class SolitaireGUI {
     // Method to update the visible cards component
     private void updateVisibleCardsComponent(JPanel visibleCardsPanel) {
         visibleCardsPanel.removeAll();
-        Stack<Card> visibleCards = gameState.getVisibleCards();
+        CardPile visibleCards = gameState.getVisibleCards();
         int numCardsToDisplay = Math.min(visibleCards.size(), 3); // Show up to 3 cards
         int xOffset = 20; // Horizontal offset between overlapping cards
         int x = 0;
@@ -372,13 +518,6 @@ public class SolitaireGUI {
         visibleCardsPanel.repaint();
     }
 
-    // Overloaded method to update the existing visible cards component
-    private void updateVisibleCardsComponent() {
-        JPanel leftTopPanel = (JPanel) topPanel.getComponent(1);
-        JPanel visibleCardsPanel = (JPanel) leftTopPanel.getComponent(1);
-        updateVisibleCardsComponent(visibleCardsPanel);
-    }
-
     // Method to update visible cards selection visuals
     private void updateVisibleCardsComponentSelection(boolean isSelected) {
         JPanel leftTopPanel = (JPanel) topPanel.getComponent(1);
@@ -390,18 +529,14 @@ public class SolitaireGUI {
 
             if (isSelected) {
                 // Enlarge the top card by 15%
-                int newWidth = (int) (73 * 1.15);
-                int newHeight = (int) (97 * 1.15);
-                ImageIcon icon = (ImageIcon) topCardLabel.getIcon();
-                Image scaledImage = icon.getImage().getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
-                topCardLabel.setIcon(new ImageIcon(scaledImage));
-                topCardLabel.setBounds(topCardLabel.getX(), topCardLabel.getY(), newWidth, newHeight);
+                topCardLabel.setIcon(CardImages.getSelectedIcon(gameState.getVisibleCards().peek(), true));
+                topCardLabel.setBounds(topCardLabel.getX(), topCardLabel.getY(), CardImages.SELECTED_WIDTH, CardImages.SELECTED_HEIGHT);
             } else {
                 // Reset to original size
-                Stack<Card> visibleCards = gameState.getVisibleCards();
+                CardPile visibleCards = gameState.getVisibleCards();
                 if (!visibleCards.isEmpty()) {
                     Card topCard = visibleCards.peek();
-                    ImageIcon icon = getCardIcon(topCard);
+                    Icon icon = CardImages.getIcon(topCard, true);
                     topCardLabel.setIcon(icon);
                     topCardLabel.setBounds(topCardLabel.getX(), topCardLabel.getY(), 73, 97);
                 }
@@ -425,13 +560,195 @@ public class SolitaireGUI {
         }
     }
 
-    // Method to update both deck and visible cards components
-    private void updateDeckAndVisibleCardsComponents() {
+    // Drags cards out of the tableau or the visible cards. The cards are drawn on the drag layer while
+    // they move; on release they are played if the move is legal and slide back otherwise.
+    private class DragHandler extends MouseAdapter {
+        private final JComponent source;
+
+        DragHandler(JComponent source) {
+            this.source = source;
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            pressPileIndex = -1;
+            if (dragLayer.isActive()) {
+                return; // Cards from the last drag are still sliding back
+            }
+            Point point = SwingUtilities.convertPoint(source, e.getPoint(), dragLayer);
+            pressX = point.x;
+            pressY = point.y;
+            if (source == playArea) {
+                int pileIndex = playArea.pileAt(e.getX());
+                if (pileIndex == -1 || gameState.getGamePile(pileIndex).isEmpty()) {
+                    return;
+                }
+                int cardIndex = playArea.cardIndexAt(pileIndex, e.getY());
+                if (!gameState.getGamePile(pileIndex).isFaceUp(cardIndex)) {
+                    return;
+                }
+                Point origin = SwingUtilities.convertPoint(playArea, playArea.getPileBounds(pileIndex).x,
+                        cardIndex * TableauPanel.CARD_OFFSET, dragLayer);
+                pressPileIndex = pileIndex;
+                pressCardIndex = cardIndex;
+                dragOriginX = origin.x;
+                dragOriginY = origin.y;
+            } else if (!gameState.getVisibleCards().isEmpty()) {
+                Component topCardLabel = getVisibleCardsPanel().getComponent(0);
+                Point origin = SwingUtilities.convertPoint(topCardLabel.getParent(), topCardLabel.getLocation(), dragLayer);
+                pressPileIndex = GameState.VISIBLE_PILE;
+                pressCardIndex = gameState.getVisibleCards().size() - 1;
+                dragOriginX = origin.x;
+                dragOriginY = origin.y;
+            }
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            if (pressPileIndex == -1) {
+                return;
+            }
+            long start = Metrics.start();
+            Point point = SwingUtilities.convertPoint(source, e.getPoint(), dragLayer);
+            if (dragPileIndex == -1) {
+                if (Math.abs(point.x - pressX) < DRAG_THRESHOLD && Math.abs(point.y - pressY) < DRAG_THRESHOLD) {
+                    return;
+                }
+                pickUpCards();
+            }
+            dragLayer.moveTo(dragOriginX + point.x - pressX, dragOriginY + point.y - pressY);
+            DRAG_TIMER.stop(start);
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            pressPileIndex = -1;
+            if (dragPileIndex != -1) {
+                long start = Metrics.start();
+                dropCards(SwingUtilities.convertPoint(source, e.getPoint(), dragLayer));
+                DROP_TIMER.stop(start);
+            }
+        }
+    }
+
+    private JPanel getVisibleCardsPanel() {
         JPanel leftTopPanel = (JPanel) topPanel.getComponent(1);
-        JLabel deckLabel = (JLabel) leftTopPanel.getComponent(0);
-        JPanel visibleCardsPanel = (JPanel) leftTopPanel.getComponent(1);
+        return (JPanel) leftTopPanel.getComponent(1);
+    }
 
-        updateDeckComponent(deckLabel);
-        updateVisibleCardsComponent(visibleCardsPanel);
+    // Moves the pressed cards onto the drag layer and hides them where they were
+    private void pickUpCards() {
+        clearSelection();
+        autoPlayer.cancel(); // Its line would move the cards under the drag
+        dragPileIndex = pressPileIndex;
+        dragCardIndex = pressCardIndex;
+        if (dragPileIndex == GameState.VISIBLE_PILE) {
+            dragLayer.startDrag(gameState.getVisibleCards(), dragCardIndex, dragOriginX, dragOriginY);
+            getVisibleCardsPanel().getComponent(0).setVisible(false);
+        } else {
+            dragLayer.startDrag(gameState.getGamePile(dragPileIndex), dragCardIndex, dragOriginX, dragOriginY);
+            playArea.setHidden(dragPileIndex, dragCardIndex);
+        }
+    }
+
+    // Plays the dragged cards onto the pile or foundation under the mouse, or slides them back if they can't go there
+    private void dropCards(Point point) {
+        CardPile fromPile = dragPileIndex == GameState.VISIBLE_PILE
+                ? gameState.getVisibleCards() : gameState.getGamePile(dragPileIndex);
+        if (dragCardIndex >= fromPile.size()) {
+            // The pile changed under the drag, so the cards are no longer there to play
+            dragLayer.clear();
+            endDrag();
+            return;
+        }
+        Card card = fromPile.get(dragCardIndex);
+        int target = dropTargetAt(point);
+        boolean legal = false;
+        if (target != -1 && target < GameState.VISIBLE_PILE) {
+            legal = target != dragPileIndex && gameState.canCardMove(card, target);
+        } else if (target >= GameState.FIRST_FOUNDATION) {
+            // Only a single card, the top of its pile, can go to a foundation
+            legal = dragLayer.getCount() == 1 && gameState.canMoveToFoundation(card, target - GameState.FIRST_FOUNDATION);
+        }
+        if (!legal) {
+            dragLayer.returnTo(dragOriginX, dragOriginY, this::endDrag);
+            return;
+        }
+
+        int fromPileIndex = dragPileIndex;
+        int cardIndex = dragCardIndex;
+        dragLayer.clear();
+        endDrag();
+        if (target < GameState.VISIBLE_PILE) {
+            if (fromPileIndex == GameState.VISIBLE_PILE) {
+                gameState.moveCardFromVisibleCardsToPile(target);
+            } else {
+                gameState.moveCards(fromPileIndex, cardIndex, target);
+            }
+        } else if (fromPileIndex == GameState.VISIBLE_PILE) {
+            gameState.moveToFoundationFromVisibleCards(target - GameState.FIRST_FOUNDATION);
+        } else {
+            gameState.moveToFoundation(fromPileIndex, target - GameState.FIRST_FOUNDATION);
+        }
+    }
+
+    // Shows the dragged cards in their pile again
+    private void endDrag() {
+        if (dragPileIndex == GameState.VISIBLE_PILE) {
+            JPanel visibleCardsPanel = getVisibleCardsPanel();
+            if (visibleCardsPanel.getComponentCount() > 0) {
+                visibleCardsPanel.getComponent(0).setVisible(true);
+            }
+        } else {
+            playArea.setHidden(-1, -1);
+        }
+        dragPileIndex = -1;
+        dragCardIndex = -1;
+    }
+
+    // Returns the tableau pile (0-6) or foundation pile id (GameState.FIRST_FOUNDATION + i) under the point, or -1
+    private int dropTargetAt(Point point) {
+        Point inPlayArea = SwingUtilities.convertPoint(dragLayer, point, playArea);
+        if (playArea.contains(inPlayArea)) {
+            return playArea.pileAt(inPlayArea.x);
+        }
+        JPanel rightTopPanel = (JPanel) topPanel.getComponent(2);
+        for (int i = 0; i < 4; i++) {
+            Component foundation = rightTopPanel.getComponent(i);
+            if (foundation.contains(SwingUtilities.convertPoint(dragLayer, point, foundation))) {
+                return GameState.FIRST_FOUNDATION + i;
+            }
+        }
+        return -1;
+    }
+
+    // Method to update the components for every pile id set in changedPiles
+    private void updateChangedComponents(int changedPiles) {
+        long start = Metrics.start();
+        for (int i = 0; i < 7; i++) {
+            if ((changedPiles & (1 << i)) != 0) {
+                updatePileComponent(i);
+            }
+        }
+        JPanel rightTopPanel = (JPanel) topPanel.getComponent(2);
+        for (int i = 0; i < 4; i++) {
+            if ((changedPiles & (1 << (GameState.FIRST_FOUNDATION + i))) != 0) {
+                updateFoundationComponent((JLabel) rightTopPanel.getComponent(i), i);
+            }
+        }
+        JPanel leftTopPanel = (JPanel) topPanel.getComponent(1);
+        if ((changedPiles & (1 << GameState.DECK_PILE)) != 0) {
+            updateDeckComponent((JLabel) leftTopPanel.getComponent(0));
+        }
+        if ((changedPiles & (1 << GameState.VISIBLE_PILE)) != 0) {
+            updateVisibleCardsComponent((JPanel) leftTopPanel.getComponent(1));
+        }
+        updateButtons();
+        if (showingHints) {
+            // The old hint is stale; search again from the new position
+            statusLabel.setText("Thinking...");
+            hintService.start(gameState);
+        }
+        UPDATE_TIMER.stop(start);
     }
 }
@@ -0,0 +1,181 @@
+package solitaire;
+
+import java.util.Arrays;
+
+// Depth-first Klondike solver that plays and takes back moves on one copy of the position.
+// Visited positions go in a transposition table, promising moves are tried first, and a safe
+// tableau-to-foundation move is always played without trying the alternatives.
+public class Solver {
+    // Longest move sequence searched, which keeps the recursion well inside a default thread stack
+    private static final int MAX_DEPTH = 2000;
+
+    private long nodeLimit = 2000000;
+    private long timeLimitMillis = 10000;
+    private long memoryLimitBytes = 64L << 20;
+
+    private long nodes;
+    private long deadline;
+    private boolean limitReached;
+    private LongHashSet visited;
+    private int[] path = new int[256];
+    private int pathLength;
+    private int[] moveStack = new int[Moves.MAX_MOVES * 16];
+    private int moveStackSize;
+    private final DealAnalyzer analyzer = new DealAnalyzer();
+
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    // Bounds the size of the transposition table
+    public void setMemoryLimitBytes(long memoryLimitBytes) {
+        this.memoryLimitBytes = memoryLimitBytes;
+        visited = null;
+    }
+
+    // Searches for a winning sequence of moves from the given position, which is left unchanged
+    public SolverResult solve(GameState start) {
+        long startTime = System.nanoTime();
+        if (analyzer.isUnwinnable(start)) {
+            // Proven lost without a search, which would otherwise run to its limits on most of these
+            return new SolverResult(SolverResult.Status.UNSOLVABLE, new int[0], 0, System.nanoTime() - startTime);
+        }
+        nodes = 0;
+        limitReached = false;
+        deadline = startTime + timeLimitMillis * 1000000L;
+        if (visited == null) {
+            visited = new LongHashSet(memoryLimitBytes);
+        } else {
+            visited.clear(); // Reuse the table between solves
+        }
+        pathLength = 0;
+        moveStackSize = 0;
+
+        boolean solved = search(new GameState(start));
+
+        SolverResult.Status status;
+        if (solved) {
+            status = SolverResult.Status.SOLVED;
+        } else if (limitReached) {
+            status = SolverResult.Status.LIMIT_REACHED;
+        } else {
+            status = SolverResult.Status.UNSOLVABLE;
+        }
+        int[] moves = solved ? Arrays.copyOf(path, pathLength) : new int[0];
+        return new SolverResult(status, moves, nodes, System.nanoTime() - startTime);
+    }
+
+    private boolean search(GameState state) {
+        if (state.isWon()) {
+            return true;
+        }
+        if (limitReached || !withinLimits()) {
+            return false;
+        }
+        nodes++;
+        if (visited.isFull()) {
+            limitReached = true;
+            return false;
+        }
+        if (!visited.add(state.getZobristHash())) {
+            return false; // Already explored, or on the current path
+        }
+
+        int safeMove = findSafeMove(state);
+        if (safeMove != -1) {
+            return tryMove(state, safeMove);
+        }
+
+        // Each level's moves sit on one shared stack above its parent's, so no node allocates
+        int first = moveStackSize;
+        if (first + Moves.MAX_MOVES > moveStack.length) {
+            moveStack = Arrays.copyOf(moveStack, moveStack.length * 2);
+        }
+        int count = state.generateMoves(moveStack, first);
+        moveStackSize = first + count;
+        boolean solved = false;
+        int firstEmptyPile = firstEmptyPile(state);
+        for (int i = first; i < first + count && !solved && !limitReached; i++) {
+            int move = moveStack[i];
+            if (!isRedundant(state, move, firstEmptyPile)) {
+                solved = tryMove(state, move);
+            }
+        }
+        moveStackSize = first;
+        return solved;
+    }
+
+    private static int firstEmptyPile(GameState state) {
+        for (int i = 0; i < 7; i++) {
+            if (state.getGamePile(i).isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Empty piles are interchangeable, so only moves into the first one are searched,
+    // and moving a whole pile into an empty pile changes nothing
+    private static boolean isRedundant(GameState state, int move, int firstEmptyPile) {
+        int type = Moves.type(move);
+        if (type != Moves.PILE_TO_PILE && type != Moves.VISIBLE_TO_PILE) {
+            return false;
+        }
+        int to = Moves.to(move);
+        if (!state.getGamePile(to).isEmpty()) {
+            return false;
+        }
+        return to != firstEmptyPile || (type == Moves.PILE_TO_PILE && Moves.cardIndex(move) == 0);
+    }
+
+    private boolean tryMove(GameState state, int move) {
+        if (pathLength >= MAX_DEPTH) {
+            limitReached = true;
+            return false;
+        }
+        int undo = state.makeMove(move);
+        if (pathLength == path.length) {
+            path = Arrays.copyOf(path, path.length * 2);
+        }
+        path[pathLength++] = move;
+        if (search(state)) {
+            return true;
+        }
+        pathLength--;
+        state.undoMove(undo);
+        return false;
+    }
+
+    private boolean withinLimits() {
+        if (nodes >= nodeLimit) {
+            limitReached = true;
+        } else if ((nodes & 0xFFF) == 0
+                && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+            limitReached = true; // Out of time, or the caller cancelled the search
+        }
+        return !limitReached;
+    }
+
+    // Returns a tableau-to-foundation move that can never hurt, or -1 if there is none
+    private static int findSafeMove(GameState state) {
+        for (int i = 0; i < 7; i++) {
+            CardPile pile = state.getGamePile(i);
+            if (pile.isEmpty()) {
+                continue;
+            }
+            Card card = pile.peek();
+            if (state.isSafeFoundationMove(card)) {
+                for (int foundationIndex = 0; foundationIndex < 4; foundationIndex++) {
+                    if (state.canMoveToFoundation(card, foundationIndex)) {
+                        return Moves.pileToFoundation(i, foundationIndex);
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+}
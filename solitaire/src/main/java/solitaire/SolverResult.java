@@ -0,0 +1,53 @@
+package solitaire;
+
+// Outcome of a Solver run: whether the deal was solved, the winning moves and search statistics
+public class SolverResult {
+    public enum Status {
+        SOLVED, // moves holds a winning sequence
+        UNSOLVABLE, // the whole reachable game was searched without finding a win, or DealAnalyzer proved it lost
+        LIMIT_REACHED // the node, time or memory budget ran out first
+    }
+
+    private final Status status;
+    private final int[] moves;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    public SolverResult(Status status, int[] moves, long nodes, long elapsedNanos) {
+        this.status = status;
+        this.moves = moves;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    // Moves encoded with Moves, empty unless the deal was solved
+    public int[] getMoves() {
+        return moves;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return status + " after " + nodes + " nodes in " + (elapsedNanos / 1000000) + " ms ("
+                + Math.round(getNodesPerSecond()) + " nodes/sec, " + moves.length + " moves)";
+    }
+}
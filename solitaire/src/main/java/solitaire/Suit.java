@@ -1,5 +1,13 @@
 package solitaire;
 
 public enum Suit {
-    HEARTS, DIAMONDS, CLUBS, SPADES
+    HEARTS, DIAMONDS, CLUBS, SPADES;
+
+    public CardColor getColor() {
+        if (this == HEARTS || this == DIAMONDS) {
+            return CardColor.RED;
+        } else {
+            return CardColor.BLACK;
+        }
+    }
 }
\ No newline at end of file
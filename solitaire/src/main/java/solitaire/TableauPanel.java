@@ -0,0 +1,133 @@
+package solitaire;
+
+import javax.swing.*;
+import java.awt.*;
+
+// Paints all seven tableau piles in a single component straight from the cached card images
+public class TableauPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    public static final int PILE_COUNT = GameState.GAME_PILE_COUNT;
+    public static final int PILE_GAP = 5; // Horizontal spacing between piles
+    public static final int CARD_OFFSET = 20; // Vertical offset between cards
+
+    private static final Color PILE_COLOR = new Color(0, 128, 0); // Green background
+    private static final Metrics.Timer PAINT_TIMER = Metrics.timer("gui.paintTableau");
+
+    private final GameState gameState;
+
+    private int selectedPileIndex = -1;
+    private int selectedCardIndex = -1;
+    // Cards from hiddenCardIndex up in hiddenPileIndex are not painted while they are being dragged
+    private int hiddenPileIndex = -1;
+    private int hiddenCardIndex = -1;
+
+    public TableauPanel(GameState gameState) {
+        this.gameState = gameState;
+        setPreferredSize(new Dimension(PILE_COUNT * 100 + (PILE_COUNT - 1) * PILE_GAP, 600));
+    }
+
+    // Width of a single pile column, the same split GridLayout(1, 7, 5, 5) used to give
+    private int pileWidth() {
+        return Math.max(0, (getWidth() - (PILE_COUNT - 1) * PILE_GAP) / PILE_COUNT);
+    }
+
+    // Area of the panel covered by a pile
+    public Rectangle getPileBounds(int pileIndex) {
+        int width = pileWidth();
+        return new Rectangle(pileIndex * (width + PILE_GAP), 0, width, getHeight());
+    }
+
+    // Returns the pile under the x coordinate, or -1 if it falls between piles
+    public int pileAt(int x) {
+        int width = pileWidth();
+        if (x < 0 || width == 0) {
+            return -1;
+        }
+        int pileIndex = x / (width + PILE_GAP);
+        if (pileIndex >= PILE_COUNT || x - pileIndex * (width + PILE_GAP) >= width) {
+            return -1;
+        }
+        return pileIndex;
+    }
+
+    // Estimates the card index from the click position, clamped to the top card of the pile
+    public int cardIndexAt(int pileIndex, int y) {
+        CardPile pile = gameState.getGamePile(pileIndex);
+        int cardIndex = y / CARD_OFFSET;
+        if (cardIndex >= pile.size()) {
+            cardIndex = pile.size() - 1;
+        }
+        return cardIndex;
+    }
+
+    // Repaints only the region covered by one pile
+    public void repaintPile(int pileIndex) {
+        repaint(getPileBounds(pileIndex));
+    }
+
+    // Highlights a card, or clears the highlight when pileIndex is -1
+    public void setSelection(int pileIndex, int cardIndex) {
+        if (selectedPileIndex != -1) {
+            repaintPile(selectedPileIndex);
+        }
+        selectedPileIndex = pileIndex;
+        selectedCardIndex = cardIndex;
+        if (pileIndex != -1) {
+            repaintPile(pileIndex);
+        }
+    }
+
+    public void clearSelection() {
+        setSelection(-1, -1);
+    }
+
+    // Leaves out the cards of a pile from cardIndex up, or shows every card again when pileIndex is -1
+    public void setHidden(int pileIndex, int cardIndex) {
+        if (hiddenPileIndex != -1) {
+            repaintPile(hiddenPileIndex);
+        }
+        hiddenPileIndex = pileIndex;
+        hiddenCardIndex = cardIndex;
+        if (pileIndex != -1) {
+            repaintPile(pileIndex);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = Metrics.start();
+        super.paintComponent(g);
+        Rectangle clip = g.getClipBounds();
+        for (int i = 0; i < PILE_COUNT; i++) {
+            Rectangle bounds = getPileBounds(i);
+            if (clip == null || clip.intersects(bounds)) {
+                paintPile(g, i, bounds, clip);
+            }
+        }
+        PAINT_TIMER.stop(start);
+    }
+
+    private void paintPile(Graphics g, int pileIndex, Rectangle bounds, Rectangle clip) {
+        g.setColor(PILE_COLOR);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(Color.BLACK);
+        g.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+
+        CardPile pile = gameState.getGamePile(pileIndex);
+        // Cards are painted bottom to top so each one overlaps the card below it
+        int end = pileIndex == hiddenPileIndex ? Math.min(hiddenCardIndex, pile.size()) : pile.size();
+        for (int i = 0; i < end; i++) {
+            int y = bounds.y + i * CARD_OFFSET;
+            boolean isSelected = pileIndex == selectedPileIndex && i == selectedCardIndex;
+            int height = isSelected ? CardImages.SELECTED_HEIGHT : CardImages.CARD_HEIGHT;
+            if (clip != null && (y >= clip.y + clip.height || y + height <= clip.y)) {
+                continue; // Outside the dirty region
+            }
+            Card card = pile.get(i);
+            boolean faceUp = pile.isFaceUp(i);
+            Icon icon = isSelected ? CardImages.getSelectedIcon(card, faceUp) : CardImages.getIcon(card, faceUp);
+            icon.paintIcon(this, g, bounds.x, y);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.swing.SwingUtilities;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.AutoPlayer;
+import solitaire.Card;
+import solitaire.GameState;
+import solitaire.Rank;
+import solitaire.Solver;
+import solitaire.SolverResult;
+import solitaire.Suit;
+
+/**
+ * Unit tests for autoplay and autocomplete.
+ */
+public class AutoPlayerTest
+    extends TestCase
+{
+    public AutoPlayerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( AutoPlayerTest.class );
+    }
+
+    public void testFinishesOnceEveryCardIsFaceUp()
+    {
+        GameState state = GameState.fromSeed( 0 );
+        Solver solver = new Solver();
+        solver.setNodeLimit( 100000 );
+        SolverResult result = solver.solve( state );
+        assertTrue( result.isSolved() );
+
+        // Follow the winning line until no tableau card is face down
+        int next = 0;
+        while ( hasFaceDownCards( state ) )
+        {
+            assertTrue( state.applyMove( result.getMoves()[next++] ) );
+        }
+        final int[] notifications = new int[1];
+        state.addListener( ( gameState, changedPiles ) -> notifications[0]++ );
+
+        int moves = new AutoPlayer().play( state );
+        assertTrue( state.isWon() );
+        assertTrue( moves > 0 );
+        assertEquals( 1, notifications[0] );
+        assertTrue( state.canUndo() );
+    }
+
+    public void testSafeMovePassHoldsBackAThree()
+    {
+        // Hearts are built to the two and the three of hearts is on top of pile 0, but the two of spades is
+        // still in the deck, so the three may yet be needed to hold it. The ace of spades is always safe.
+        // The ace of diamonds is safe too, but it is a visible card, and taking it would change later draws.
+        int threeOfHearts = id( Suit.HEARTS, Rank.THREE );
+        int aceOfSpades = id( Suit.SPADES, Rank.ACE );
+        int aceOfDiamonds = id( Suit.DIAMONDS, Rank.ACE );
+        int[][] foundations = { { id( Suit.HEARTS, Rank.ACE ), id( Suit.HEARTS, Rank.TWO ) },
+            { id( Suit.CLUBS, Rank.ACE ), id( Suit.CLUBS, Rank.TWO ) }, {}, {} };
+        int[][] piles = { { id( Suit.SPADES, Rank.KING ), threeOfHearts }, { aceOfSpades }, {}, {}, {}, {}, {} };
+        List<Integer> deck = new ArrayList<>();
+        for ( int i = 0; i < 52; i++ )
+        {
+            deck.add( i );
+        }
+        deck.removeAll( Arrays.asList( threeOfHearts, aceOfSpades, aceOfDiamonds, id( Suit.SPADES, Rank.KING ),
+                                       foundations[0][0], foundations[0][1], foundations[1][0], foundations[1][1] ) );
+        int[] deckIds = new int[deck.size()];
+        for ( int i = 0; i < deckIds.length; i++ )
+        {
+            deckIds[i] = deck.get( i );
+        }
+        GameState state = GameState.fromLayout( piles, new int[] { 1, 0, 0, 0, 0, 0, 0 }, deckIds,
+                                                new int[] { aceOfDiamonds }, new int[0], foundations );
+
+        assertEquals( 1, new AutoPlayer().play( state ) );
+        assertTrue( state.getGamePile( 1 ).isEmpty() );
+        assertEquals( threeOfHearts, state.getGamePile( 0 ).peekId() );
+        assertEquals( 2, state.getFoundationCount( Suit.HEARTS ) );
+        assertEquals( aceOfDiamonds, state.getVisibleCards().peekId() );
+    }
+
+    public void testStartFinishesInTheBackground() throws Exception
+    {
+        GameState state = faceUpPosition();
+        AutoPlayer player = new AutoPlayer();
+        Future<?> search = startOnEventThread( player, state, () -> true );
+        finish( search );
+        assertTrue( state.isWon() );
+        player.shutdown();
+    }
+
+    public void testLineIsDroppedWhileItCannotBePlayed() throws Exception
+    {
+        // As while cards are being dragged: the line arrives but is not played
+        GameState state = faceUpPosition();
+        AutoPlayer player = new AutoPlayer();
+        final boolean[] asked = new boolean[1];
+        Future<?> search = startOnEventThread( player, state, () -> {
+            asked[0] = true;
+            return false;
+        } );
+        long hash = state.getZobristHash();
+        finish( search );
+        assertTrue( asked[0] );
+        assertEquals( hash, state.getZobristHash() );
+        player.shutdown();
+    }
+
+    public void testChangedGameDropsTheBackgroundLine() throws Exception
+    {
+        // Starting and then undoing before the line arrives leaves the game as the undo left it
+        GameState state = faceUpPosition();
+        AutoPlayer player = new AutoPlayer();
+        final long[] hash = new long[1];
+        final List<Future<?>> search = new ArrayList<>();
+        SwingUtilities.invokeAndWait( () -> {
+            search.add( player.start( state ) );
+            state.undo();
+            hash[0] = state.getZobristHash();
+        } );
+        finish( search.get( 0 ) );
+        assertEquals( hash[0], state.getZobristHash() );
+        assertFalse( state.isWon() );
+        player.shutdown();
+    }
+
+    // Seed 23 played along a winning line until every tableau card is face up. Eight cards are still in the
+    // stock then, so the safe moves alone cannot finish the game and the solver has to.
+    private static GameState faceUpPosition()
+    {
+        GameState state = GameState.fromSeed( 23 );
+        SolverResult result = new Solver().solve( state );
+        assertTrue( result.isSolved() );
+        int next = 0;
+        while ( hasFaceDownCards( state ) )
+        {
+            assertTrue( state.applyMove( result.getMoves()[next++] ) );
+        }
+        return state;
+    }
+
+    private static Future<?> startOnEventThread( AutoPlayer player, GameState state, BooleanSupplier canPlay )
+        throws Exception
+    {
+        final List<Future<?>> search = new ArrayList<>();
+        SwingUtilities.invokeAndWait( () -> search.add( player.start( state, canPlay ) ) );
+        assertNotNull( search.get( 0 ) );
+        return search.get( 0 );
+    }
+
+    // Waits for the search, then for the event thread to run what the search posted to it
+    private static void finish( Future<?> search ) throws Exception
+    {
+        search.get( 10, TimeUnit.SECONDS );
+        SwingUtilities.invokeAndWait( () -> { } );
+    }
+
+    private static int id( Suit suit, Rank rank )
+    {
+        return Card.of( suit, rank ).getId();
+    }
+
+    private static boolean hasFaceDownCards( GameState state )
+    {
+        for ( int i = 0; i < 7; i++ )
+        {
+            if ( state.getGamePile( i ).getFaceDownCount() > 0 )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
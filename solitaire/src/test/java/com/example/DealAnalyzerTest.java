@@ -0,0 +1,89 @@
+package com.example;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.Card;
+import solitaire.DealAnalyzer;
+import solitaire.GameState;
+import solitaire.GreedyPlayer;
+import solitaire.Rank;
+import solitaire.Solver;
+import solitaire.SolverResult;
+import solitaire.Suit;
+
+/**
+ * Unit tests for the unwinnable deal detector.
+ */
+public class DealAnalyzerTest
+    extends TestCase
+{
+    public DealAnalyzerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( DealAnalyzerTest.class );
+    }
+
+    public void testBlockedCardIsFound()
+    {
+        // The two of spades can go nowhere: its ace and both red threes are underneath it
+        int[] blocked = { id( Suit.SPADES, Rank.ACE ), id( Suit.HEARTS, Rank.THREE ), id( Suit.DIAMONDS, Rank.THREE ),
+            id( Suit.SPADES, Rank.TWO ) };
+        int[] deck = new int[48];
+        int count = 0;
+        for ( int i = 0; i < 52; i++ )
+        {
+            if ( i != blocked[0] && i != blocked[1] && i != blocked[2] && i != blocked[3] )
+            {
+                deck[count++] = i;
+            }
+        }
+        int[][] piles = { blocked, {}, {}, {}, {}, {}, {} };
+        GameState state = GameState.fromLayout( piles, new int[] { 3, 0, 0, 0, 0, 0, 0 }, deck, new int[0], new int[0],
+                                                new int[4][0] );
+
+        long stuck = new DealAnalyzer().stuckCards( state );
+        assertTrue( ( stuck & ( 1L << blocked[3] ) ) != 0 );
+        assertTrue( ( stuck & ( 1L << blocked[0] ) ) != 0 );
+
+        SolverResult result = new Solver().solve( state );
+        assertEquals( SolverResult.Status.UNSOLVABLE, result.getStatus() );
+        assertEquals( 0, result.getNodes() );
+    }
+
+    public void testWonDealsAreNeverFlagged()
+    {
+        // A deal the greedy player wins is winnable, so the analyzer must not call it lost
+        DealAnalyzer analyzer = new DealAnalyzer();
+        GreedyPlayer player = new GreedyPlayer();
+        GameState state = new GameState( 0 );
+        int flagged = 0;
+        int won = 0;
+        for ( long seed = 0; seed < 2000; seed++ )
+        {
+            state.deal( seed );
+            boolean unwinnable = analyzer.isUnwinnable( state );
+            player.play( state );
+            if ( state.isWon() )
+            {
+                assertFalse( "Seed " + seed, unwinnable );
+                won++;
+            }
+            if ( unwinnable )
+            {
+                flagged++;
+            }
+        }
+        assertTrue( flagged > 0 );
+        assertTrue( won > 0 );
+    }
+
+    private static int id( Suit suit, Rank rank )
+    {
+        return Card.of( suit, rank ).getId();
+    }
+}
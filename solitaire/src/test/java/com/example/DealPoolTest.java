@@ -0,0 +1,95 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.DealPool;
+import solitaire.GameState;
+import solitaire.Solver;
+
+/**
+ * Unit tests for the pool of winnable deals.
+ */
+public class DealPoolTest
+    extends TestCase
+{
+    private Path dir;
+
+    public DealPoolTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( DealPoolTest.class );
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory( "deal-pool" );
+    }
+
+    @Override
+    protected void tearDown() throws IOException
+    {
+        for ( Path path : Files.newDirectoryStream( dir ) )
+        {
+            Files.delete( path );
+        }
+        Files.delete( dir );
+    }
+
+    public void testSeedsAreLoadedAndSaved() throws Exception
+    {
+        // A full pool never starts the refill thread, so the seeds come back in file order
+        Path file = dir.resolve( "deals" );
+        List<String> lines = new ArrayList<>();
+        for ( int i = 0; i < DealPool.CAPACITY; i++ )
+        {
+            lines.add( Long.toString( 1000 + i ) );
+        }
+        Files.write( file, lines, StandardCharsets.UTF_8 );
+
+        DealPool pool = new DealPool( file );
+        assertEquals( DealPool.CAPACITY, pool.size() );
+        assertEquals( 1000, pool.nextSeed() );
+        assertEquals( 1001, pool.nextSeed() );
+        assertEquals( DealPool.CAPACITY - 2, pool.size() );
+
+        // Taking seeds does not write the file; shutdown does
+        assertEquals( DealPool.CAPACITY, Files.readAllLines( file, StandardCharsets.UTF_8 ).size() );
+        pool.shutdown();
+        assertEquals( DealPool.CAPACITY - 2, Files.readAllLines( file, StandardCharsets.UTF_8 ).size() );
+        DealPool reloaded = new DealPool( file );
+        assertEquals( DealPool.CAPACITY - 2, reloaded.size() );
+        assertEquals( 1002, reloaded.nextSeed() );
+        reloaded.shutdown();
+    }
+
+    public void testEmptyPoolRefillsWithWinnableDeals() throws Exception
+    {
+        DealPool pool = new DealPool( dir.resolve( "deals" ) );
+        pool.nextSeed(); // Nothing solved yet, so this hands out a random seed rather than waiting
+
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while ( pool.size() == 0 && System.nanoTime() < deadline )
+        {
+            Thread.sleep( 10 );
+        }
+        assertTrue( pool.size() > 0 );
+        long seed = pool.nextSeed();
+        pool.shutdown(); // Interrupts the refill part way and saves what it found
+        assertEquals( pool.size(), Files.readAllLines( dir.resolve( "deals" ), StandardCharsets.UTF_8 ).size() );
+
+        GameState state = new GameState( seed );
+        assertTrue( new Solver().solve( state ).isSolved() );
+    }
+}
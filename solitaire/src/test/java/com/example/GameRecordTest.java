@@ -0,0 +1,147 @@
+package com.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.GameRecordReader;
+import solitaire.GameRecordWriter;
+import solitaire.GameReplay;
+import solitaire.GameState;
+import solitaire.GreedyPlayer;
+
+/**
+ * Unit tests for the binary game record log.
+ */
+public class GameRecordTest
+    extends TestCase
+{
+    public GameRecordTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( GameRecordTest.class );
+    }
+
+    public void testRecordedGamesReplay() throws IOException
+    {
+        File file = File.createTempFile( "games", ".bin" );
+        file.deleteOnExit();
+        file.delete();
+
+        GreedyPlayer player = new GreedyPlayer();
+        long[] hashes = new long[200];
+        // Two writers, to check that reopening appends after the existing games
+        for ( int half = 0; half < 2; half++ )
+        {
+            try ( GameRecordWriter writer = new GameRecordWriter( file.toPath() ) )
+            {
+                for ( int seed = half * 100; seed < half * 100 + 100; seed++ )
+                {
+                    GameState state = GameState.fromSeed( seed * 1000003L );
+                    int moves = player.play( state );
+                    hashes[seed] = state.getZobristHash();
+                    writer.write( state.getSeed(), player.getPlayedMoves(), moves );
+                }
+            }
+        }
+
+        try ( GameRecordReader reader = new GameRecordReader( file.toPath() ) )
+        {
+            assertEquals( 200, reader.size() );
+            GameState replay = new GameState( 0 );
+            for ( int game = 0; game < reader.size(); game++ )
+            {
+                assertEquals( game * 1000003L, reader.getSeed( game ) );
+                reader.replay( game, replay );
+                assertEquals( hashes[game], replay.getZobristHash() );
+            }
+        }
+    }
+
+    public void testSeekMatchesReplayFromTheDeal()
+    {
+        GreedyPlayer player = new GreedyPlayer();
+        GameState played = GameState.fromSeed( 12 );
+        int count = player.play( played );
+        int[] moves = java.util.Arrays.copyOf( player.getPlayedMoves(), count );
+
+        GameReplay replay = new GameReplay( 12, moves, 7 );
+        GameState fromDeal = GameState.fromSeed( 12 );
+        GameState seeked = new GameState( 0 );
+        for ( int n = 0; n <= count; n++ )
+        {
+            replay.seek( n, seeked );
+            assertEquals( fromDeal.getZobristHash(), seeked.getZobristHash() );
+            assertFalse( seeked.canUndo() ); // Replayed moves stay out of the undo history
+            if ( n < count )
+            {
+                assertTrue( fromDeal.applyMove( moves[n] ) );
+            }
+        }
+        // Seeking backwards works just as well
+        replay.seek( 3, seeked );
+        GameState three = GameState.fromSeed( 12 );
+        for ( int n = 0; n < 3; n++ )
+        {
+            three.applyMove( moves[n] );
+        }
+        assertEquals( three.getZobristHash(), seeked.getZobristHash() );
+        assertEquals( 12, seeked.getSeed() );
+    }
+
+    public void testTruncatedRecordIsSkipped() throws IOException
+    {
+        File file = File.createTempFile( "games", ".bin" );
+        file.deleteOnExit();
+        file.delete();
+        try ( GameRecordWriter writer = new GameRecordWriter( file.toPath() ) )
+        {
+            writer.write( 7, new int[] { 0, 0, 0 }, 3 );
+            writer.write( 8, new int[] { 0, 0, 0 }, 3 );
+        }
+        try ( RandomAccessFile raw = new RandomAccessFile( file, "rw" ) )
+        {
+            raw.setLength( raw.length() - 1 );
+        }
+        try ( GameRecordReader reader = new GameRecordReader( file.toPath() ) )
+        {
+            assertEquals( 1, reader.size() );
+            assertEquals( 3, reader.getMoves( 0 ).length );
+        }
+    }
+
+    public void testAppendingAfterATruncatedRecordKeepsNewGames() throws IOException
+    {
+        File file = File.createTempFile( "games", ".bin" );
+        file.deleteOnExit();
+        file.delete();
+        try ( GameRecordWriter writer = new GameRecordWriter( file.toPath() ) )
+        {
+            writer.write( 7, new int[] { 0, 0, 0 }, 3 );
+            writer.write( 8, new int[] { 0, 0, 0 }, 3 );
+        }
+        try ( RandomAccessFile raw = new RandomAccessFile( file, "rw" ) )
+        {
+            raw.setLength( raw.length() - 1 );
+        }
+        // Reopening cuts off the partial game, so the next one follows the last complete record
+        try ( GameRecordWriter writer = new GameRecordWriter( file.toPath() ) )
+        {
+            writer.write( 9, new int[] { 0, 0 }, 2 );
+        }
+        try ( GameRecordReader reader = new GameRecordReader( file.toPath() ) )
+        {
+            assertEquals( 2, reader.size() );
+            assertEquals( 7, reader.getSeed( 0 ) );
+            assertEquals( 3, reader.getMoves( 0 ).length );
+            assertEquals( 9, reader.getSeed( 1 ) );
+            assertEquals( 2, reader.getMoves( 1 ).length );
+        }
+    }
+}
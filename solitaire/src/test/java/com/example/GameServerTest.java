@@ -0,0 +1,112 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.GameServer;
+
+/**
+ * Unit tests for the socket game server.
+ */
+public class GameServerTest
+    extends TestCase
+{
+    private GameServer server;
+    private Socket socket;
+    private BufferedReader in;
+    private PrintWriter out;
+
+    public GameServerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( GameServerTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        server = new GameServer( 100, 60000 );
+        int port = server.start( 0 );
+        socket = new Socket( InetAddress.getLoopbackAddress(), port );
+        in = new BufferedReader( new InputStreamReader( socket.getInputStream(), StandardCharsets.UTF_8 ) );
+        out = new PrintWriter( socket.getOutputStream(), true );
+    }
+
+    protected void tearDown() throws IOException
+    {
+        socket.close();
+        server.close();
+    }
+
+    private String send( String command ) throws IOException
+    {
+        out.println( command );
+        return in.readLine();
+    }
+
+    public void testCommandsPlayTheGame() throws IOException
+    {
+        assertTrue( send( "DRAW" ).startsWith( "ERR" ) );
+        assertEquals( "OK 1 5", send( "NEW 5" ) );
+        assertTrue( send( "STATE" ).startsWith( "OK deck=24 discard=0 visible=- foundations=-,-,-,- piles=" ) );
+        assertEquals( "OK", send( "DRAW" ) );
+        assertTrue( send( "STATE" ).startsWith( "OK deck=21 discard=0 visible=" ) );
+        assertEquals( "OK", send( "UNDO" ) );
+        assertTrue( send( "STATE" ).startsWith( "OK deck=24" ) );
+        assertEquals( "ERR illegal move", send( "MOVE 0 1 3" ) );
+        assertTrue( send( "MOVE 9 0 0" ).startsWith( "ERR" ) );
+        assertTrue( send( "JUMP" ).startsWith( "ERR" ) );
+        assertEquals( "OK", send( "CLOSE" ) );
+        assertTrue( send( "DRAW" ).startsWith( "ERR" ) );
+        assertEquals( 0, server.getSessionCount() );
+    }
+
+    public void testIdleSessionIsEvictedAndRestored() throws IOException, InterruptedException
+    {
+        send( "NEW 9" );
+        send( "DRAW" );
+        send( "DRAW" );
+        String before = send( "STATE" );
+        assertEquals( 1, server.getLiveSessionCount() );
+
+        for ( int i = 0; i < 100 && server.getLiveSessionCount() > 0; i++ )
+        {
+            Thread.sleep( 50 );
+        }
+        assertEquals( 0, server.getLiveSessionCount() );
+        assertEquals( 1, server.getSessionCount() );
+
+        // A new connection picks the game up where it was left
+        send( "QUIT" );
+        socket.close();
+        setUpConnection();
+        assertEquals( "OK 1", send( "ATTACH 1" ) );
+        assertEquals( before, send( "STATE" ) );
+        assertEquals( 1, server.getLiveSessionCount() );
+    }
+
+    public void testCloseDisconnectsClients() throws IOException
+    {
+        assertEquals( "OK 1 3", send( "NEW 3" ) );
+        server.close();
+        socket.setSoTimeout( 5000 );
+        assertNull( in.readLine() );
+    }
+
+    private void setUpConnection() throws IOException
+    {
+        socket = new Socket( InetAddress.getLoopbackAddress(), socket.getPort() );
+        in = new BufferedReader( new InputStreamReader( socket.getInputStream(), StandardCharsets.UTF_8 ) );
+        out = new PrintWriter( socket.getOutputStream(), true );
+    }
+}
@@ -0,0 +1,329 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.Card;
+import solitaire.CardPile;
+import solitaire.GameState;
+import solitaire.Moves;
+import solitaire.Rules;
+
+/**
+ * Randomized stress test for the GameState rules. Every core plays random sequences of legal and illegal
+ * calls through the public API and checks the invariants after each one. A failing sequence is shrunk to
+ * a short reproducer before it is reported. Runs for -Dsolitaire.stressSeconds (2 by default).
+ */
+public class GameStateStressTest
+    extends TestCase
+{
+    private static final int OPS_PER_GAME = 300;
+    private static final int PACKED_SIZE = GameState.PACKED_SIZE;
+
+    // Operation kinds, chosen by the low bits of a random int; the other bits pick the arguments.
+    // Kinds 0-5 play a generated legal move, so games get somewhere; the rest are often illegal.
+    private static final int DRAW = 6;
+    private static final int MOVE = 7;
+    private static final int PLAY = 8;
+    private static final int FOUNDATION = 9;
+    private static final int VISIBLE_FOUNDATION = 10;
+    private static final int UNDO = 11;
+    private static final int REDO = 12;
+    private static final int MAKE_AND_UNDO = 13;
+    private static final int DISCARD = 14;
+    private static final int KINDS = 16; // Kind 15 is another UNDO
+
+    public GameStateStressTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( GameStateStressTest.class );
+    }
+
+    public void testRandomOperationsKeepInvariants() throws InterruptedException
+    {
+        long budgetNanos = (long) ( Double.parseDouble( System.getProperty( "solitaire.stressSeconds", "2" ) ) * 1e9 );
+        long deadline = System.nanoTime() + budgetNanos;
+        AtomicLong nextSeed = new AtomicLong();
+        AtomicLong operations = new AtomicLong();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread[] threads = new Thread[Runtime.getRuntime().availableProcessors()];
+        for ( int t = 0; t < threads.length; t++ )
+        {
+            threads[t] = new Thread( () -> {
+                int[] ops = new int[OPS_PER_GAME];
+                while ( System.nanoTime() < deadline && failure.get() == null )
+                {
+                    long seed = nextSeed.getAndIncrement();
+                    SplittableRandom random = new SplittableRandom( seed );
+                    for ( int i = 0; i < ops.length; i++ )
+                    {
+                        ops[i] = random.nextInt();
+                    }
+                    if ( run( seed, ops ) != null )
+                    {
+                        int[] shrunk = shrink( seed, ops.clone() );
+                        failure.compareAndSet( null, "Seed " + seed + " fails after " + describe( shrunk ) + ": "
+                                + run( seed, shrunk ) );
+                    }
+                    operations.addAndGet( ops.length );
+                }
+            }, "stress-" + t );
+            threads[t].start();
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        assertNull( failure.get(), failure.get() );
+        assertTrue( operations.get() > 0 );
+    }
+
+    // Plays ops on a fresh deal of seed, checking after each one. Returns the first violation, or null.
+    private static String run( long seed, int[] ops )
+    {
+        GameState state = GameState.fromSeed( seed );
+        int[] moves = new int[256];
+        byte[] before = new byte[PACKED_SIZE];
+        byte[] after = new byte[PACKED_SIZE];
+        for ( int i = 0; i < ops.length; i++ )
+        {
+            try
+            {
+                apply( state, ops[i], moves, before, after );
+                String violation = check( state );
+                if ( violation != null )
+                {
+                    return "step " + i + ": " + violation;
+                }
+            }
+            catch ( RuntimeException e )
+            {
+                return "step " + i + ": " + e;
+            }
+        }
+        return null;
+    }
+
+    private static void apply( GameState state, int op, int[] moves, byte[] before, byte[] after )
+    {
+        int kind = ( op & 0xF ) % KINDS;
+        int a = op >>> 4;
+        switch ( kind )
+        {
+            case DRAW:
+                state.drawFromDeck();
+                break;
+            case MOVE:
+                state.moveCards( a % 7, ( a >>> 3 ) % 20, ( a >>> 8 ) % 7 );
+                break;
+            case PLAY:
+                state.moveCardFromVisibleCardsToPile( a % 7 );
+                break;
+            case FOUNDATION:
+                state.moveToFoundation( a % 7, ( a >>> 3 ) % 4 );
+                break;
+            case VISIBLE_FOUNDATION:
+                state.moveToFoundationFromVisibleCards( a % 4 );
+                break;
+            case REDO:
+                state.redo();
+                break;
+            case MAKE_AND_UNDO:
+            {
+                int count = state.generateMoves( moves );
+                if ( count > 0 )
+                {
+                    int length = state.pack( before, 0 );
+                    long hash = state.getZobristHash();
+                    state.undoMove( state.makeMove( moves[a % count] ) );
+                    state.pack( after, 0 );
+                    if ( !Arrays.equals( before, after ) || hash != state.getZobristHash() || length > PACKED_SIZE )
+                    {
+                        throw new IllegalStateException( "undoMove did not restore the position" );
+                    }
+                }
+                break;
+            }
+            case DISCARD:
+                state.discardCardsAndClearHistory();
+                break;
+            case UNDO:
+            case 15:
+                state.undo();
+                break;
+            default: // A generated move
+            {
+                int count = state.generateMoves( moves );
+                if ( count > 0 && !state.applyMove( moves[a % count] ) )
+                {
+                    throw new IllegalStateException( "generated move was refused: " + Moves.toString( moves[a % count] ) );
+                }
+            }
+        }
+    }
+
+    // Returns a description of the first broken invariant, or null if they all hold
+    private static String check( GameState state )
+    {
+        long seen = 0;
+        int total = 0;
+        CardPile[] piles = {
+            state.getGamePile( 0 ), state.getGamePile( 1 ), state.getGamePile( 2 ), state.getGamePile( 3 ),
+            state.getGamePile( 4 ), state.getGamePile( 5 ), state.getGamePile( 6 ), state.getVisibleCards(),
+            state.getFoundationPile( 0 ), state.getFoundationPile( 1 ), state.getFoundationPile( 2 ),
+            state.getFoundationPile( 3 ), state.getDeck(), state.getDiscardedCards() };
+        for ( CardPile pile : piles )
+        {
+            for ( int i = 0; i < pile.size(); i++ )
+            {
+                int id = pile.getId( i );
+                if ( id < 0 || id >= 52 || ( seen & ( 1L << id ) ) != 0 )
+                {
+                    return "card " + id + " is out of range or appears twice";
+                }
+                seen |= 1L << id;
+                total++;
+            }
+        }
+        if ( total != 52 )
+        {
+            return total + " cards instead of 52";
+        }
+
+        for ( int p = 0; p < 7; p++ )
+        {
+            CardPile pile = state.getGamePile( p );
+            boolean faceUpSeen = false;
+            for ( int i = 0; i < pile.size(); i++ )
+            {
+                if ( pile.isFaceUp( i ) )
+                {
+                    faceUpSeen = true;
+                    // The face-up cards form a run, each card one lower and the other colour
+                    if ( i > 0 && pile.isFaceUp( i - 1 ) && !Rules.canStack( pile.getId( i ), pile.getId( i - 1 ) ) )
+                    {
+                        return "pile " + p + " has " + pile.get( i ) + " on " + pile.get( i - 1 );
+                    }
+                }
+                else if ( faceUpSeen )
+                {
+                    return "pile " + p + " has a face-down card above a face-up one";
+                }
+            }
+            if ( !pile.isEmpty() && !pile.isFaceUp( pile.size() - 1 ) )
+            {
+                return "pile " + p + " has a face-down top card";
+            }
+        }
+
+        for ( int f = 0; f < 4; f++ )
+        {
+            CardPile foundation = state.getFoundationPile( f );
+            for ( int i = 0; i < foundation.size(); i++ )
+            {
+                Card card = foundation.get( i );
+                boolean fits = i == 0 ? Rules.isAce( card.getId() ) : Rules.canFollow( card.getId(), foundation.getId( i - 1 ) );
+                if ( !fits || !foundation.isFaceUp( i ) )
+                {
+                    return "foundation " + f + " has " + card + " at " + i;
+                }
+            }
+        }
+
+        for ( int i = 0; i < state.getVisibleCards().size(); i++ )
+        {
+            if ( !state.getVisibleCards().isFaceUp( i ) )
+            {
+                return "a visible card is face down";
+            }
+        }
+        for ( int i = 0; i < state.getDeck().size(); i++ )
+        {
+            if ( state.getDeck().isFaceUp( i ) )
+            {
+                return "a deck card is face up";
+            }
+        }
+
+        if ( rebuild( state ).getZobristHash() != state.getZobristHash() )
+        {
+            return "the incremental Zobrist hash does not match the position";
+        }
+        return null;
+    }
+
+    // Removes chunks of operations, halving the chunk size, for as long as the sequence still fails
+    private static int[] shrink( long seed, int[] ops )
+    {
+        for ( int chunk = ops.length / 2; chunk >= 1; chunk /= 2 )
+        {
+            int start = 0;
+            while ( start + chunk <= ops.length )
+            {
+                int[] candidate = new int[ops.length - chunk];
+                System.arraycopy( ops, 0, candidate, 0, start );
+                System.arraycopy( ops, start + chunk, candidate, start, ops.length - start - chunk );
+                if ( run( seed, candidate ) != null )
+                {
+                    ops = candidate;
+                }
+                else
+                {
+                    start += chunk;
+                }
+            }
+        }
+        return ops;
+    }
+
+    private static String describe( int[] ops )
+    {
+        String[] names = { "LEGAL", "LEGAL", "LEGAL", "LEGAL", "LEGAL", "LEGAL", "DRAW", "MOVE", "PLAY", "FOUNDATION",
+            "VISIBLE_FOUNDATION", "UNDO", "REDO", "MAKE_AND_UNDO", "DISCARD", "UNDO" };
+        List<String> steps = new ArrayList<>();
+        for ( int op : ops )
+        {
+            steps.add( names[( op & 0xF ) % KINDS] + "(" + ( op >>> 4 ) + ")" );
+        }
+        return steps.toString();
+    }
+
+    private static GameState rebuild( GameState state )
+    {
+        int[][] piles = new int[7][];
+        int[] faceDown = new int[7];
+        for ( int i = 0; i < 7; i++ )
+        {
+            piles[i] = ids( state.getGamePile( i ) );
+            faceDown[i] = state.getGamePile( i ).getFaceDownCount();
+        }
+        int[][] foundations = new int[4][];
+        for ( int i = 0; i < 4; i++ )
+        {
+            foundations[i] = ids( state.getFoundationPile( i ) );
+        }
+        return GameState.fromLayout( piles, faceDown, ids( state.getDeck() ), ids( state.getVisibleCards() ),
+                                     ids( state.getDiscardedCards() ), foundations );
+    }
+
+    private static int[] ids( CardPile pile )
+    {
+        int[] ids = new int[pile.size()];
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            ids[i] = pile.getId( i );
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.Card;
+import solitaire.CardPile;
+import solitaire.Deals;
+import solitaire.GameState;
+import solitaire.Moves;
+import solitaire.Rank;
+import solitaire.Rules;
+import solitaire.Solver;
+import solitaire.SolverResult;
+import solitaire.Suit;
+
+/**
+ * Unit tests for the GameState rules and change tracking.
+ */
+public class GameStateTest
+    extends TestCase
+{
+    public GameStateTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( GameStateTest.class );
+    }
+
+    public void testInitialDeal()
+    {
+        GameState state = new GameState();
+        int dealt = 0;
+        for ( int i = 0; i < 7; i++ )
+        {
+            assertEquals( i + 1, state.getGamePile( i ).size() );
+            assertTrue( state.getGamePile( i ).isFaceUp( i ) );
+            dealt += i + 1;
+        }
+        assertEquals( 52 - dealt, state.getDeck().size() );
+    }
+
+    public void testDrawCyclesThroughDeck()
+    {
+        GameState state = new GameState();
+        int deckSize = state.getDeck().size();
+        long visibleVersion = state.getVisibleCardsVersion();
+
+        state.drawFromDeck();
+        assertEquals( 3, state.getVisibleCards().size() );
+        assertEquals( deckSize - 3, state.getDeck().size() );
+        assertTrue( state.getVisibleCardsVersion() > visibleVersion );
+
+        while ( !state.getDeck().isEmpty() )
+        {
+            state.drawFromDeck();
+        }
+        // Drawing from an empty deck turns the discard pile back over
+        state.drawFromDeck();
+        assertEquals( deckSize, state.getDeck().size() );
+        assertTrue( state.getVisibleCards().isEmpty() );
+    }
+
+    public void testListenerSeesChangedPiles()
+    {
+        GameState state = new GameState();
+        final int[] changes = new int[1];
+        state.addListener( ( gameState, changedPiles ) -> changes[0] |= changedPiles );
+
+        state.drawFromDeck();
+        assertEquals( ( 1 << GameState.DECK_PILE ) | ( 1 << GameState.VISIBLE_PILE ), changes[0] );
+    }
+
+    public void testSeededDealIsReproducible()
+    {
+        // Pinned values: a seed must deal the same game on every JVM and in every release
+        int[] expectedTops = { 38, 13, 40, 26, 25, 30, 37 };
+        GameState state = GameState.fromSeed( 42 );
+        for ( int i = 0; i < 7; i++ )
+        {
+            assertEquals( expectedTops[i], state.getGamePile( i ).peekId() );
+        }
+        assertEquals( 32, state.getDeck().peekId() );
+        assertEquals( 42, state.getSeed() );
+    }
+
+    public void testBulkDealsMatchSeededDeals()
+    {
+        byte[] deals = new byte[10 * Deals.DECK_SIZE];
+        Deals.fill( 100, 10, deals );
+        GameState fromBuffer = new GameState( 0 );
+        for ( int i = 0; i < 10; i++ )
+        {
+            fromBuffer.deal( 100 + i, deals, i * Deals.DECK_SIZE );
+            GameState seeded = new GameState( 100 + i );
+            for ( int pile = 0; pile < 7; pile++ )
+            {
+                assertEquals( seeded.getGamePile( pile ).peekId(), fromBuffer.getGamePile( pile ).peekId() );
+            }
+            assertEquals( seeded.getDeck().peekId(), fromBuffer.getDeck().peekId() );
+            assertEquals( 100 + i, fromBuffer.getSeed() );
+        }
+    }
+
+    public void testZobristHashMatchesRebuiltPosition()
+    {
+        GameState state = GameState.fromSeed( 0 );
+        Solver solver = new Solver();
+        solver.setNodeLimit( 100000 );
+        SolverResult result = solver.solve( state );
+        for ( int move : result.getMoves() )
+        {
+            state.applyMove( move );
+            assertEquals( rebuild( state, false ).getZobristHash(), state.getZobristHash() );
+        }
+        // Also exercise drawing and turning the discard pile over
+        for ( int i = 0; i < 20; i++ )
+        {
+            GameState other = GameState.fromSeed( i );
+            for ( int draw = 0; draw < 10; draw++ )
+            {
+                other.drawFromDeck();
+                assertEquals( rebuild( other, false ).getZobristHash(), other.getZobristHash() );
+            }
+        }
+    }
+
+    public void testCanonicalKeyIgnoresPileOrder()
+    {
+        GameState state = GameState.fromSeed( 3 );
+        GameState reversed = rebuild( state, true );
+        assertFalse( state.getZobristHash() == reversed.getZobristHash() );
+        assertTrue( java.util.Arrays.equals( state.getCanonicalKey( false ), reversed.getCanonicalKey( false ) ) );
+        assertEquals( state.getCanonicalHash( true ), reversed.getCanonicalHash( true ) );
+    }
+
+    public void testCanonicalKeyIgnoresSameColourSuitSwaps()
+    {
+        GameState state = GameState.fromSeed( 3 );
+        GameState redSwapped = swapSuits( state, Suit.HEARTS, Suit.DIAMONDS );
+        GameState bothSwapped = swapSuits( redSwapped, Suit.CLUBS, Suit.SPADES );
+        assertFalse( java.util.Arrays.equals( state.getCanonicalKey( false ), redSwapped.getCanonicalKey( false ) ) );
+        assertTrue( java.util.Arrays.equals( state.getCanonicalKey( true ), redSwapped.getCanonicalKey( true ) ) );
+        assertTrue( java.util.Arrays.equals( state.getCanonicalKey( true ), bothSwapped.getCanonicalKey( true ) ) );
+        assertEquals( state.getCanonicalHash( true ), bothSwapped.getCanonicalHash( true ) );
+
+        // Swapping a red suit with a black one changes which cards can stack, so it is a different position
+        GameState mixedSwapped = swapSuits( state, Suit.HEARTS, Suit.CLUBS );
+        assertFalse( java.util.Arrays.equals( state.getCanonicalKey( true ), mixedSwapped.getCanonicalKey( true ) ) );
+    }
+
+    public void testGeneratedMovesAreLegalAndUndo()
+    {
+        int[] moves = new int[Moves.MAX_MOVES];
+        int[] undo = new int[300];
+        java.util.Random random = new java.util.Random( 7 );
+        for ( int seed = 0; seed < 50; seed++ )
+        {
+            GameState state = GameState.fromSeed( seed );
+            long startHash = state.getZobristHash();
+            int played = 0;
+            while ( played < undo.length )
+            {
+                int count = state.generateMoves( moves );
+                if ( count == 0 )
+                {
+                    break;
+                }
+                for ( int i = 0; i < count; i++ )
+                {
+                    assertTrue( Moves.toString( moves[i] ), new GameState( state ).applyMove( moves[i] ) );
+                }
+                undo[played++] = state.makeMove( moves[random.nextInt( count )] );
+                assertEquals( rebuild( state, false ).getZobristHash(), state.getZobristHash() );
+            }
+            while ( played > 0 )
+            {
+                state.undoMove( undo[--played] );
+            }
+            assertEquals( startHash, state.getZobristHash() );
+            assertEquals( startHash, rebuild( state, false ).getZobristHash() );
+        }
+    }
+
+    public void testUndoAndRedoRetraceTheGame()
+    {
+        int[] moves = new int[Moves.MAX_MOVES];
+        long[] hashes = new long[101];
+        java.util.Random random = new java.util.Random( 11 );
+        GameState state = GameState.fromSeed( 5 );
+        hashes[0] = state.getZobristHash();
+        for ( int i = 1; i < hashes.length; i++ )
+        {
+            int count = state.generateMoves( moves );
+            assertTrue( state.applyMove( moves[random.nextInt( count )] ) );
+            hashes[i] = state.getZobristHash();
+        }
+
+        final int[] changes = new int[1];
+        state.addListener( ( gameState, changedPiles ) -> changes[0] |= changedPiles );
+        for ( int i = hashes.length - 1; i > 0; i-- )
+        {
+            assertTrue( state.undo() );
+            assertEquals( hashes[i - 1], state.getZobristHash() );
+        }
+        assertFalse( state.canUndo() );
+        assertTrue( changes[0] != 0 );
+        for ( int i = 1; i < hashes.length; i++ )
+        {
+            assertTrue( state.redo() );
+            assertEquals( hashes[i], state.getZobristHash() );
+        }
+        assertFalse( state.canRedo() );
+
+        // A new move after an undo drops the redo history
+        state.undo();
+        state.drawFromDeck();
+        assertFalse( state.canRedo() );
+        assertTrue( state.canUndo() );
+    }
+
+    public void testRuleTablesMatchCardRules()
+    {
+        for ( Suit suit : Suit.values() )
+        {
+            for ( Rank rank : Rank.values() )
+            {
+                Card card = Card.of( suit, rank );
+                assertEquals( rank == Rank.KING, Rules.isKing( card.getId() ) );
+                assertEquals( rank == Rank.ACE, Rules.isAce( card.getId() ) );
+                for ( Suit onSuit : Suit.values() )
+                {
+                    for ( Rank onRank : Rank.values() )
+                    {
+                        Card on = Card.of( onSuit, onRank );
+                        assertEquals( card.getColor() != on.getColor() && rank.ordinal() + 1 == onRank.ordinal(),
+                                      Rules.canStack( card.getId(), on.getId() ) );
+                        assertEquals( suit == onSuit && rank.ordinal() == onRank.ordinal() + 1,
+                                      Rules.canFollow( card.getId(), on.getId() ) );
+                    }
+                }
+            }
+        }
+    }
+
+    // Builds the same position card by card, optionally with the tableau piles in reverse order
+    private static GameState rebuild( GameState state, boolean reversePiles )
+    {
+        int[][] piles = new int[7][];
+        int[] faceDown = new int[7];
+        for ( int i = 0; i < 7; i++ )
+        {
+            int source = reversePiles ? 6 - i : i;
+            piles[i] = ids( state.getGamePile( source ) );
+            faceDown[i] = state.getGamePile( source ).getFaceDownCount();
+        }
+        int[][] foundations = new int[4][];
+        for ( int i = 0; i < 4; i++ )
+        {
+            foundations[i] = ids( state.getFoundationPile( i ) );
+        }
+        return GameState.fromLayout( piles, faceDown, ids( state.getDeck() ), ids( state.getVisibleCards() ),
+                                     ids( state.getDiscardedCards() ), foundations );
+    }
+
+    // Copies the position with every card of suit a replaced by the same rank of suit b, and the other way round
+    private static GameState swapSuits( GameState state, Suit a, Suit b )
+    {
+        int[][] piles = new int[7][];
+        int[] faceDown = new int[7];
+        for ( int i = 0; i < 7; i++ )
+        {
+            piles[i] = swap( ids( state.getGamePile( i ) ), a, b );
+            faceDown[i] = state.getGamePile( i ).getFaceDownCount();
+        }
+        int[][] foundations = new int[4][];
+        for ( int i = 0; i < 4; i++ )
+        {
+            foundations[i] = swap( ids( state.getFoundationPile( i ) ), a, b );
+        }
+        return GameState.fromLayout( piles, faceDown, swap( ids( state.getDeck() ), a, b ),
+                                     swap( ids( state.getVisibleCards() ), a, b ),
+                                     swap( ids( state.getDiscardedCards() ), a, b ), foundations );
+    }
+
+    private static int[] swap( int[] ids, Suit a, Suit b )
+    {
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            Card card = Card.of( ids[i] );
+            if ( card.getSuit() == a )
+            {
+                ids[i] = Card.of( b, card.getRank() ).getId();
+            }
+            else if ( card.getSuit() == b )
+            {
+                ids[i] = Card.of( a, card.getRank() ).getId();
+            }
+        }
+        return ids;
+    }
+
+    private static int[] ids( CardPile pile )
+    {
+        int[] ids = new int[pile.size()];
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            ids[i] = pile.getId( i );
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.GameState;
+import solitaire.HintService;
+
+/**
+ * Unit tests for the background hint search.
+ */
+public class HintServiceTest
+    extends TestCase
+{
+    public HintServiceTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( HintServiceTest.class );
+    }
+
+    public void testHintIsALegalMove() throws InterruptedException
+    {
+        BlockingQueue<Integer> hints = new ArrayBlockingQueue<>( 10 );
+        HintService service = new HintService( ( move, status ) -> hints.add( move ) );
+        GameState state = GameState.fromSeed( 1 );
+        service.start( state );
+
+        Integer move = hints.poll( 5, TimeUnit.SECONDS );
+        assertNotNull( move );
+        assertTrue( new GameState( state ).applyMove( move ) );
+        service.shutdown();
+    }
+
+    public void testCancelledSearchReportsNothing() throws InterruptedException
+    {
+        BlockingQueue<Integer> hints = new ArrayBlockingQueue<>( 10 );
+        HintService service = new HintService( ( move, status ) -> hints.add( move ) );
+        service.start( GameState.fromSeed( 2 ) );
+        service.cancel();
+
+        assertNull( hints.poll( 500, TimeUnit.MILLISECONDS ) );
+        service.shutdown();
+    }
+}
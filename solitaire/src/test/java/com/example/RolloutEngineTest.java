@@ -0,0 +1,55 @@
+package com.example;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.GameState;
+import solitaire.RolloutEngine;
+import solitaire.RolloutResult;
+
+/**
+ * Unit tests for the Monte Carlo rollout engine.
+ */
+public class RolloutEngineTest
+    extends TestCase
+{
+    public RolloutEngineTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( RolloutEngineTest.class );
+    }
+
+    public void testEveryLegalMoveIsEstimated() throws Exception
+    {
+        RolloutEngine engine = new RolloutEngine( 2 );
+        engine.setMaxRolloutsPerMove( 256 );
+        engine.setRoundSize( 64 );
+        GameState state = GameState.fromSeed( 4 );
+        long hash = state.getZobristHash();
+
+        RolloutResult result = engine.evaluate( state );
+        assertEquals( hash, state.getZobristHash() );
+        assertTrue( result.getMoveCount() > 0 );
+        for ( int i = 0; i < result.getMoveCount(); i++ )
+        {
+            assertTrue( new GameState( state ).applyMove( result.getMove( i ) ) );
+            assertTrue( result.getRollouts( i ) >= 64 && result.getRollouts( i ) <= 256 );
+            assertTrue( result.getWinProbability( i ) >= 0 && result.getWinProbability( i ) <= 1 );
+        }
+        assertTrue( result.getRolloutsPerSecond() > 0 );
+        engine.shutdown();
+    }
+
+    public void testCopyFromMatchesTheOriginal()
+    {
+        GameState state = GameState.fromSeed( 9 );
+        GameState copy = new GameState( 0 );
+        copy.copyFrom( state );
+        assertEquals( state.getZobristHash(), copy.getZobristHash() );
+        assertEquals( state.getGamePile( 6 ).peekId(), copy.getGamePile( 6 ).peekId() );
+    }
+}
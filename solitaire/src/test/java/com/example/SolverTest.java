@@ -0,0 +1,109 @@
+package com.example;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solitaire.Card;
+import solitaire.GameState;
+import solitaire.Rank;
+import solitaire.Solver;
+import solitaire.SolverResult;
+import solitaire.Suit;
+
+/**
+ * Unit tests for the Klondike solver.
+ */
+public class SolverTest
+    extends TestCase
+{
+    public SolverTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SolverTest.class );
+    }
+
+    public void testSolutionsReplayToAWin()
+    {
+        GameState deal = GameState.fromSeed( 0 );
+        Solver solver = new Solver();
+        solver.setNodeLimit( 100000 );
+        SolverResult result = solver.solve( deal );
+        assertEquals( SolverResult.Status.SOLVED, result.getStatus() );
+        assertTrue( result.getNodes() <= 100000 );
+
+        GameState replay = new GameState( deal );
+        for ( int move : result.getMoves() )
+        {
+            assertTrue( replay.applyMove( move ) );
+        }
+        assertTrue( replay.isWon() );
+    }
+
+    public void testDeadPositionIsUnsolvable()
+    {
+        // Every other suit is home. The two of spades covers its own ace and only a king can go to an empty
+        // pile, so the spades never move; the search has to run out of positions to prove it
+        int[][] foundations = { suit( Suit.HEARTS, 13 ), suit( Suit.DIAMONDS, 13 ), suit( Suit.CLUBS, 13 ), {} };
+        int[][] piles = { { id( Suit.SPADES, Rank.ACE ), id( Suit.SPADES, Rank.TWO ) }, {}, {}, {}, {}, {}, {} };
+        int[] deck = new int[11];
+        for ( int i = 0; i < deck.length; i++ )
+        {
+            deck[i] = id( Suit.SPADES, Rank.values()[i + 2] );
+        }
+        GameState state = GameState.fromLayout( piles, new int[] { 1, 0, 0, 0, 0, 0, 0 }, deck, new int[0],
+                                                new int[0], foundations );
+
+        SolverResult result = new Solver().solve( state );
+        assertEquals( SolverResult.Status.UNSOLVABLE, result.getStatus() );
+        assertEquals( 0, result.getMoves().length );
+        assertTrue( result.getNodes() > 0 ); // Searched, not caught by DealAnalyzer
+    }
+
+    public void testNodeLimitIsReached()
+    {
+        Solver solver = new Solver();
+        solver.setNodeLimit( 10 );
+        SolverResult result = solver.solve( GameState.fromSeed( 0 ) );
+        assertEquals( SolverResult.Status.LIMIT_REACHED, result.getStatus() );
+        assertTrue( result.getNodes() <= 10 );
+    }
+
+    public void testMemoryLimitIsReached()
+    {
+        // The smallest table holds a dozen positions, far fewer than seed 0 needs
+        Solver solver = new Solver();
+        solver.setMemoryLimitBytes( 0 );
+        SolverResult result = solver.solve( GameState.fromSeed( 0 ) );
+        assertEquals( SolverResult.Status.LIMIT_REACHED, result.getStatus() );
+        assertTrue( result.getNodes() < 100 );
+    }
+
+    public void testTimeLimitIsReached()
+    {
+        // The clock is checked before the first node, so no time at all stops the search there
+        Solver solver = new Solver();
+        solver.setTimeLimitMillis( 0 );
+        SolverResult result = solver.solve( GameState.fromSeed( 0 ) );
+        assertEquals( SolverResult.Status.LIMIT_REACHED, result.getStatus() );
+        assertEquals( 0, result.getNodes() );
+    }
+
+    private static int[] suit( Suit suit, int count )
+    {
+        int[] ids = new int[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            ids[i] = id( suit, Rank.values()[i] );
+        }
+        return ids;
+    }
+
+    private static int id( Suit suit, Rank rank )
+    {
+        return Card.of( suit, rank ).getId();
+    }
+}